@@ -0,0 +1,113 @@
+package client;
+
+/**
+ * A* shortest path search over the cells of a {@link Map}, see:
+ * https://en.wikipedia.org/wiki/A*_search_algorithm
+ * The heuristic is the Manhattan distance, measured around the edges when the map is cyclic;
+ * it never overestimates and is consistent, so the returned path is a shortest one.
+ *
+ * The open set is a {@link MinHeap} over primitive arrays (no boxing, no per-node objects), keyed by
+ * f = g + h. Ties are broken in favor of the smaller h (the node closer to the target) and then in
+ * favor of keeping the current direction, so among equally short paths straight lines are preferred.
+ * The open and closed sets are {@link EpochMarks}, so a new search does not clear them.
+ */
+class AStarSearch {
+	private int[] _g = new int[0];
+	private int[] _parent = new int[0];
+	/** The direction each cell was entered from its parent (-1 for the source). */
+	private int[] _dir = new int[0];
+	/** The cells that have a g value in this search, and the cells that were expanded. */
+	private final EpochMarks _open = new EpochMarks(0);
+	private final EpochMarks _closed = new EpochMarks(0);
+	/** The open set; stale entries are skipped when popped. */
+	private final MinHeap _heap = new MinHeap();
+
+	/**
+	 * Computes a shortest path between two cells of a map.
+	 * @param map the map to search.
+	 * @param source the start cell index.
+	 * @param target the end cell index.
+	 * @param obsColor the color representing obstacles.
+	 * @return the shortest path as an array of consecutive pixels, null if there is none.
+	 */
+	Pixel2D[] shortestPath(Map map, int source, int target, int obsColor) {
+		if (map.valueAt(source) == obsColor || map.valueAt(target) == obsColor) {
+			return null;
+		}
+		begin(map.size());
+		int tx = map.xOf(target), ty = map.yOf(target);
+		_open.mark(source);
+		_g[source] = 0;
+		_parent[source] = source;
+		_dir[source] = -1;
+		_heap.push(key(0, heuristic(map, source, tx, ty), 0), source);
+
+		while (!_heap.isEmpty()) {
+			int current = _heap.pop();
+			if (_closed.isMarked(current)) {
+				// A stale entry of a cell that was already expanded with a smaller g
+				continue;
+			}
+			if (current == target) {
+				return buildPath(map, source, target);
+			}
+			_closed.mark(current);
+			int g = _g[current] + 1;
+			for (int d = 0; d < Map.DIRECTIONS; d++) {
+				int n = map.neighbor(current, d);
+				if (n < 0 || _closed.isMarked(n) || map.valueAt(n) == obsColor) {
+					continue;
+				}
+				if (!_open.isMarked(n) || g < _g[n]) {
+					_open.mark(n);
+					_g[n] = g;
+					_parent[n] = current;
+					_dir[n] = d;
+					int turn = (_dir[current] >= 0 && _dir[current] != d) ? 1 : 0;
+					_heap.push(key(g, heuristic(map, n, tx, ty), turn), n);
+				}
+			}
+		}
+		return null;
+	}
+
+	////////////////////// Private Methods ///////////////////////
+
+	/** Grows the per-cell arrays if needed and clears the marks of the last search. */
+	private void begin(int n) {
+		if (_g.length < n) {
+			_g = new int[n];
+			_parent = new int[n];
+			_dir = new int[n];
+		}
+		_open.begin(n);
+		_closed.begin(n);
+		_heap.clear();
+	}
+
+	/** @return the Manhattan distance from cell to (tx,ty), taking the short way around when cyclic. */
+	private static int heuristic(Map map, int cell, int tx, int ty) {
+		int dx = Math.abs(map.xOf(cell) - tx);
+		int dy = Math.abs(map.yOf(cell) - ty);
+		if (map.isCyclic()) {
+			dx = Math.min(dx, map.getWidth() - dx);
+			dy = Math.min(dy, map.getHeight() - dy);
+		}
+		return dx + dy;
+	}
+
+	/** Orders by f = g + h, then by h, then straight moves before turns. */
+	private static long key(int g, int h, int turn) {
+		return ((long) (g + h) << 32) | ((long) h << 1) | turn;
+	}
+
+	private Pixel2D[] buildPath(Map map, int source, int target) {
+		Pixel2D[] path = new Pixel2D[_g[target] + 1];
+		int c = target;
+		for (int i = path.length - 1; i >= 0; i--) {
+			path[i] = PackedPixel.of(map.xOf(c), map.yOf(c));
+			c = _parent[c];
+		}
+		return path;
+	}
+}
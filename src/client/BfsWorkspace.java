@@ -0,0 +1,348 @@
+package client;
+
+import java.util.Collection;
+import java.util.function.IntPredicate;
+
+/**
+ * A reusable BFS search state over the cells of a {@link Map}.
+ * The queue, the parent links and the distances are kept in primitive int arrays that are
+ * allocated once (and grown when a larger map is searched), and a cell counts as visited
+ * only if its mark equals the current search epoch. Starting a new search therefore just
+ * increments the epoch - nothing has to be cleared, and a search costs O(reachable cells).
+ *
+ * A workspace can be kept by a caller (e.g. Ex3Algo) across calls and across maps,
+ * but it must not be shared between threads.
+ */
+public class BfsWorkspace {
+	private int[] _queue = new int[0];
+	private int[] _parent = new int[0];
+	private int[] _dist = new int[0];
+	/** _origin[c] is the ordinal of the source whose BFS tree contains c. */
+	private int[] _origin = new int[0];
+	/** The cells visited by the current search. */
+	private final EpochMarks _marks = new EpochMarks(0);
+	/** Number of cells reached by the current search (they are _queue[0.._count)). */
+	private int _count = 0;
+	/** Number of cells already expanded by {@link #expandLevel(int, BfsWorkspace)}. */
+	private int _head = 0;
+	/** The map searched by the current search. */
+	private Map _map;
+
+	public BfsWorkspace() {}
+
+	/**
+	 * Computes the shortest path distances (obstacle avoiding) from start to every reachable cell.
+	 * The results can be read with {@link #distance(Pixel2D)} until the next search.
+	 * @param map the map to search.
+	 * @param start the source (starting) point.
+	 * @param obsColor the color representing obstacles.
+	 * @return the number of reachable cells (including start), 0 if start is outside the map or an obstacle.
+	 */
+	public int run(Map map, Pixel2D start, int obsColor) {
+		begin(map);
+		if (!map.isInside(start)) {
+			return 0;
+		}
+		search(map.indexOf(start.getX(), start.getY()), -1, obsColor);
+		return _count;
+	}
+
+	/**
+	 * Computes, in a single BFS, the distance from every cell to its nearest source (obstacle avoiding).
+	 * The results can be read with {@link #distance(Pixel2D)} and {@link #source(Pixel2D)} until the next search.
+	 * @param map the map to search.
+	 * @param sources the source points; sources outside the map or on an obstacle are ignored.
+	 * @param obsColor the color representing obstacles.
+	 * @return the number of reachable cells (including the sources).
+	 */
+	public int run(Map map, Collection<? extends Pixel2D> sources, int obsColor) {
+		begin(map);
+		int ordinal = 0;
+		for (Pixel2D p : sources) {
+			if (map.isInside(p)) {
+				seed(map.indexOf(p.getX(), p.getY()), ordinal, obsColor);
+			}
+			ordinal++;
+		}
+		expand(-1, obsColor);
+		return _count;
+	}
+
+	/**
+	 * Computes the shortest path distances from start to every cell reachable through passable cells.
+	 * The results can be read with {@link #distance(Pixel2D)} until the next search.
+	 * @param map the map to search.
+	 * @param start the source (starting) point.
+	 * @param passable tests the value of a cell (e.g. v -> v != WALL && v != POWER_PELLET).
+	 * @return the number of reachable cells (including start), 0 if start is outside the map or not passable.
+	 */
+	public int run(Map map, Pixel2D start, IntPredicate passable) {
+		begin(map);
+		if (!map.isInside(start)) {
+			return 0;
+		}
+		search(map.indexOf(start.getX(), start.getY()), -1, passable);
+		return _count;
+	}
+
+	/**
+	 * Streams a BFS from start (obstacle avoiding): passes every reached cell and its distance to the
+	 * visitor in BFS order, without building a result, and stops as soon as the visitor returns false.
+	 * Cells farther than maxDistance are not reached, so the cost depends on the radius and not on the map size.
+	 * The distances of the cells passed to the visitor can also be read with {@link #distance(Pixel2D)} until the next search.
+	 * @param map the map to search.
+	 * @param start the source (starting) point, passed to the visitor first (at distance 0).
+	 * @param obsColor the color representing obstacles.
+	 * @param maxDistance the largest distance to reach (Integer.MAX_VALUE for no bound).
+	 * @param visitor called with every reached cell.
+	 * @return the number of cells passed to the visitor, 0 if start is outside the map or an obstacle.
+	 */
+	public int traverse(Map map, Pixel2D start, int obsColor, int maxDistance, CellVisitor visitor) {
+		begin(map);
+		if (!map.isInside(start) || maxDistance < 0 || !seed(map.indexOf(start.getX(), start.getY()), 0, obsColor)) {
+			return 0;
+		}
+		int head = 0, tail = _count;
+		while (head < tail) {
+			int current = _queue[head++];
+			int dist = _dist[current];
+			if (!visitor.visit(current, dist)) {
+				break;
+			}
+			if (dist == maxDistance) {
+				continue;
+			}
+			for (int d = 0; d < Map.DIRECTIONS; d++) {
+				int n = map.neighbor(current, d);
+				if (n >= 0 && !_marks.isMarked(n) && map.valueAt(n) != obsColor) {
+					visit(n, current, dist + 1, 0);
+					_queue[tail++] = n;
+				}
+			}
+		}
+		_count = tail;
+		return head;
+	}
+
+	/**
+	 * @param p a coordinate of the last searched map.
+	 * @return the distance of p found by the last search, -1 if p was not reached.
+	 */
+	public int distance(Pixel2D p) {
+		if (_map == null || !_map.isInside(p)) {
+			return -1;
+		}
+		return distance(_map.indexOf(p.getX(), p.getY()));
+	}
+
+	/**
+	 * @param p a coordinate of the last searched map.
+	 * @return the ordinal (in iteration order) of the source nearest to p in the last search,
+	 * -1 if p was not reached. Ties are broken in favor of the earlier source.
+	 */
+	public int source(Pixel2D p) {
+		if (_map == null || !_map.isInside(p)) {
+			return -1;
+		}
+		int cell = _map.indexOf(p.getX(), p.getY());
+		return visited(cell) ? _origin[cell] : -1;
+	}
+
+	////////////////////// Package-private search API ///////////////////////
+
+	/**
+	 * Starts a new search over the given map: grows the arrays if needed and advances the epoch.
+	 */
+	void begin(Map map) {
+		_map = map;
+		_count = 0;
+		_head = 0;
+		int n = map.size();
+		if (_marks.size() < n) {
+			_queue = new int[n];
+			_parent = new int[n];
+			_dist = new int[n];
+			_origin = new int[n];
+		}
+		_marks.begin(n);
+	}
+
+	/**
+	 * Runs a BFS (in the search started by {@link #begin(Map)}) from source,
+	 * stopping as soon as target is dequeued.
+	 * @param source the source cell index.
+	 * @param target the target cell index, or -1 to explore every reachable cell.
+	 * @param obsColor the color representing obstacles.
+	 * @return true iff target was reached.
+	 */
+	boolean search(int source, int target, int obsColor) {
+		return seed(source, 0, obsColor) && expand(target, obsColor);
+	}
+
+	/**
+	 * Same as {@link #search(int, int, int)}, moving only through the cells whose values are passable.
+	 */
+	boolean search(int source, int target, IntPredicate passable) {
+		Map map = _map;
+		if (visited(source) || !passable.test(map.valueAt(source))) {
+			return false;
+		}
+		visit(source, source, 0, 0);
+		_queue[_count++] = source;
+		int head = 0, tail = _count;
+		while (head < tail) {
+			int current = _queue[head++];
+			if (current == target) {
+				_count = tail;
+				return true;
+			}
+			int next = _dist[current] + 1;
+			for (int d = 0; d < Map.DIRECTIONS; d++) {
+				int n = map.neighbor(current, d);
+				if (n >= 0 && !_marks.isMarked(n) && passable.test(map.valueAt(n))) {
+					visit(n, current, next, 0);
+					_queue[tail++] = n;
+				}
+			}
+		}
+		_count = tail;
+		return false;
+	}
+
+	/**
+	 * Adds a source (at distance 0) to the current search, before {@link #expand(int, int)} is called.
+	 * @param cell the source cell index.
+	 * @param origin the ordinal reported by {@link #source(Pixel2D)} for the cells nearest to this source.
+	 * @param obsColor the color representing obstacles.
+	 * @return true iff the source was added (it is not an obstacle and not already a source).
+	 */
+	boolean seed(int cell, int origin, int obsColor) {
+		if (visited(cell) || _map.valueAt(cell) == obsColor) {
+			return false;
+		}
+		visit(cell, cell, 0, origin);
+		_queue[_count++] = cell;
+		return true;
+	}
+
+	/**
+	 * Expands the BFS from the seeded sources, stopping as soon as target is dequeued.
+	 * @param target the target cell index, or -1 to explore every reachable cell.
+	 * @param obsColor the color representing obstacles.
+	 * @return true iff target was reached.
+	 */
+	boolean expand(int target, int obsColor) {
+		Map map = _map;
+		int head = 0, tail = _count;
+		while (head < tail) {
+			int current = _queue[head++];
+			if (current == target) {
+				_count = tail;
+				return true;
+			}
+			int next = _dist[current] + 1;
+			int origin = _origin[current];
+			for (int d = 0; d < Map.DIRECTIONS; d++) {
+				int n = map.neighbor(current, d);
+				if (n >= 0 && !_marks.isMarked(n) && map.valueAt(n) != obsColor) {
+					visit(n, current, next, origin);
+					_queue[tail++] = n;
+				}
+			}
+		}
+		_count = tail;
+		return false;
+	}
+
+	/**
+	 * Expands the BFS from the seeded sources like {@link #expand(int, int)}, collecting the cells of the
+	 * given color as they are dequeued (i.e., in order of distance), and stops as soon as k are collected.
+	 * @param color the color of the cells to collect.
+	 * @param k the number of cells to collect.
+	 * @param obsColor the color representing obstacles.
+	 * @param found the collected cells (at least k entries).
+	 * @return the number of cells collected (less than k if fewer are reachable).
+	 */
+	int collect(int color, int k, int obsColor, int[] found) {
+		Map map = _map;
+		int head = 0, tail = _count, collected = 0;
+		while (head < tail && collected < k) {
+			int current = _queue[head++];
+			if (map.valueAt(current) == color) {
+				found[collected++] = current;
+				if (collected == k) {
+					break;
+				}
+			}
+			int next = _dist[current] + 1;
+			int origin = _origin[current];
+			for (int d = 0; d < Map.DIRECTIONS; d++) {
+				int n = map.neighbor(current, d);
+				if (n >= 0 && !_marks.isMarked(n) && map.valueAt(n) != obsColor) {
+					visit(n, current, next, origin);
+					_queue[tail++] = n;
+				}
+			}
+		}
+		_count = tail;
+		return collected;
+	}
+
+	/**
+	 * Expands the current frontier by exactly one BFS level (used by a search running from both ends).
+	 * Newly visited cells that were already visited by the other search are meeting points.
+	 * @param obsColor the color representing obstacles.
+	 * @param other the search running from the other end.
+	 * @return the meeting point minimizing the sum of both distances, -1 if this level met none.
+	 */
+	int expandLevel(int obsColor, BfsWorkspace other) {
+		Map map = _map;
+		int levelEnd = _count;
+		int best = -1, bestLength = Integer.MAX_VALUE;
+		while (_head < levelEnd) {
+			int current = _queue[_head++];
+			int next = _dist[current] + 1;
+			int origin = _origin[current];
+			for (int d = 0; d < Map.DIRECTIONS; d++) {
+				int n = map.neighbor(current, d);
+				if (n >= 0 && !_marks.isMarked(n) && map.valueAt(n) != obsColor) {
+					visit(n, current, next, origin);
+					_queue[_count++] = n;
+					if (other.visited(n) && next + other._dist[n] < bestLength) {
+						bestLength = next + other._dist[n];
+						best = n;
+					}
+				}
+			}
+		}
+		return best;
+	}
+
+	/** @return the number of visited cells that were not expanded yet. */
+	int frontierSize() {return _count - _head;}
+
+	/** @return true iff the cell was visited by the current search. */
+	boolean visited(int cell) {return _marks.isMarked(cell);}
+
+	/** @return the distance of the cell in the current search, -1 if it was not visited. */
+	int distance(int cell) {return visited(cell) ? _dist[cell] : -1;}
+
+	/** @return the ordinal of the source nearest to the given (visited) cell. */
+	int origin(int cell) {return _origin[cell];}
+
+	/** @return the cell the given (visited) cell was discovered from; a source is its own parent. */
+	int parent(int cell) {return _parent[cell];}
+
+	/** @return the number of cells visited by the current search. */
+	int count() {return _count;}
+
+	/** @return the i-th visited cell of the current search, in BFS order. */
+	int visitedCell(int i) {return _queue[i];}
+
+	private void visit(int cell, int parent, int dist, int origin) {
+		_marks.mark(cell);
+		_parent[cell] = parent;
+		_dist[cell] = dist;
+		_origin[cell] = origin;
+	}
+}
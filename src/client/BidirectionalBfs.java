@@ -0,0 +1,57 @@
+package client;
+
+/**
+ * Shortest path search that runs a BFS from both end points and stops where the two meet.
+ * On open maps each side only explores a ball of about half the path length, so far fewer
+ * cells are visited than by a one-sided BFS, while the returned path is still a shortest one.
+ * Each step expands one full level of the side with the smaller frontier; after the first level
+ * in which the searches meet, the meeting point with the smallest total distance is taken.
+ */
+class BidirectionalBfs {
+	private final BfsWorkspace _forward = new BfsWorkspace();
+	private final BfsWorkspace _backward = new BfsWorkspace();
+
+	/**
+	 * Computes a shortest path between two cells of a map.
+	 * @param map the map to search.
+	 * @param source the start cell index.
+	 * @param target the end cell index.
+	 * @param obsColor the color representing obstacles.
+	 * @return the shortest path as an array of consecutive pixels, null if there is none.
+	 */
+	Pixel2D[] shortestPath(Map map, int source, int target, int obsColor) {
+		_forward.begin(map);
+		_backward.begin(map);
+		if (!_forward.seed(source, 0, obsColor) || !_backward.seed(target, 0, obsColor)) {
+			return null;
+		}
+		int meet = source == target ? source : -1;
+		while (meet < 0 && _forward.frontierSize() > 0 && _backward.frontierSize() > 0) {
+			// Grow the side that has less work to do
+			if (_forward.frontierSize() <= _backward.frontierSize()) {
+				meet = _forward.expandLevel(obsColor, _backward);
+			}
+			else {
+				meet = _backward.expandLevel(obsColor, _forward);
+			}
+		}
+		if (meet < 0) {
+			return null;
+		}
+
+		// Join the forward half (source..meet) and the backward half (meet..target)
+		int length = _forward.distance(meet) + _backward.distance(meet) + 1;
+		Pixel2D[] path = new Pixel2D[length];
+		int c = meet;
+		for (int i = _forward.distance(meet); i >= 0; i--) {
+			path[i] = PackedPixel.of(map.xOf(c), map.yOf(c));
+			c = _forward.parent(c);
+		}
+		c = meet;
+		for (int i = _forward.distance(meet) + 1; i < length; i++) {
+			c = _backward.parent(c);
+			path[i] = PackedPixel.of(map.xOf(c), map.yOf(c));
+		}
+		return path;
+	}
+}
@@ -0,0 +1,278 @@
+package client;
+
+import java.util.Arrays;
+
+/**
+ * Bit-parallel BFS distances for large maps.
+ * The walkable cells, the visited cells and the current frontier are kept as bitsets
+ * (one long per 64 cells, every row starting at a new word), and a whole BFS level is computed
+ * with word operations: the frontier shifted one column right and left (carrying bits between the
+ * words of a row, and between the first and last column when the map is cyclic) or-ed with the
+ * frontier rows above and below, and-ed with the walkable cells that were not visited yet.
+ * Only the band of rows the frontier spans is processed.
+ *
+ * Word-level expansion pays off while the frontier is dense. A level whose frontier has only a few
+ * cells for the number of words in its band (e.g. a corridor in a maze) is expanded cell by cell
+ * from a list instead, like a queue BFS, so the search never does much worse than the queue version.
+ */
+class BitBfs {
+	/** A level is expanded cell by cell if its frontier has fewer than (band words) / SPARSE_RATIO cells. */
+	private static final int SPARSE_RATIO = 4;
+
+	private long[] _free = new long[0];
+	private long[] _visited = new long[0];
+	private long[] _frontier = new long[0];
+	private long[] _next = new long[0];
+	/** The frontier cells as a list (valid iff _listed), and the list of the next level. */
+	private int[] _list = new int[0];
+	private int[] _nextList = new int[0];
+	private boolean _listed;
+	private int _wordsPerRow;
+	/** The row band of the level computed by the last expand call. */
+	private int _bandStart, _bandRows;
+
+	/**
+	 * Computes the shortest path distances (obstacle avoiding) from source to every cell.
+	 * @param map the map to search.
+	 * @param source the source cell index (not an obstacle).
+	 * @param obsColor the color representing obstacles.
+	 * @param dist the result array (of map.size() entries, all -1), indexed by cell.
+	 */
+	void allDistance(Map map, int source, int obsColor, int[] dist) {
+		int w = map.getWidth(), h = map.getHeight();
+		_wordsPerRow = (w + 63) >>> 6;
+		int words = _wordsPerRow * h;
+		if (_free.length < words) {
+			_free = new long[words];
+			_visited = new long[words];
+			_frontier = new long[words];
+			_next = new long[words];
+		}
+		else {
+			Arrays.fill(_free, 0, words, 0L);
+			Arrays.fill(_visited, 0, words, 0L);
+			Arrays.fill(_frontier, 0, words, 0L);
+			Arrays.fill(_next, 0, words, 0L);
+		}
+		if (_list.length < map.size()) {
+			_list = new int[map.size()];
+			_nextList = new int[map.size()];
+		}
+		for (int y = 0, cell = 0; y < h; y++) {
+			int row = y * _wordsPerRow;
+			for (int x = 0; x < w; x++, cell++) {
+				if (map.valueAt(cell) != obsColor) {
+					_free[row + (x >>> 6)] |= 1L << x;
+				}
+			}
+		}
+
+		setBit(_frontier, map, source);
+		setBit(_visited, map, source);
+		dist[source] = 0;
+		_list[0] = source;
+		_listed = true;
+		int count = 1;
+		// The frontier occupies rows bandStart .. bandStart+bandRows-1 (mod h)
+		int bandStart = map.yOf(source), bandRows = 1;
+		int level = 0;
+
+		while (count > 0) {
+			level++;
+			int nextCount;
+			if (count * SPARSE_RATIO < bandRows * _wordsPerRow) {
+				if (!_listed) {
+					listFrontier(map, bandStart, bandRows);
+				}
+				nextCount = expandSparse(map, count, level, dist);
+				// Clear the old frontier (now in _nextList), it becomes the buffer of the level after next
+				for (int i = 0; i < count; i++) {
+					_frontier[wordOf(map, _nextList[i])] = 0L;
+				}
+			}
+			else {
+				nextCount = expandDense(map, bandStart, bandRows, level, dist);
+				// Clear the old frontier band, it becomes the buffer of the level after next
+				for (int k = 0; k < bandRows; k++) {
+					int row = ((bandStart + k) % h) * _wordsPerRow;
+					Arrays.fill(_frontier, row, row + _wordsPerRow, 0L);
+				}
+			}
+			long[] bits = _frontier;
+			_frontier = _next;
+			_next = bits;
+			count = nextCount;
+			bandStart = _bandStart;
+			bandRows = _bandRows;
+		}
+	}
+
+	////////////////////// Private Methods ///////////////////////
+
+	/**
+	 * Expands the frontier (a band of rows) by one level with word operations.
+	 * @return the number of cells in the next level.
+	 */
+	private int expandDense(Map map, int bandStart, int bandRows, int level, int[] dist) {
+		int h = map.getHeight();
+		// The next level can only reach the rows next to the band
+		int nextStart, nextRows;
+		if (map.isCyclic()) {
+			nextRows = Math.min(bandRows + 2, h);
+			nextStart = nextRows == h ? 0 : (bandStart - 1 + h) % h;
+		}
+		else {
+			nextStart = Math.max(bandStart - 1, 0);
+			nextRows = Math.min(bandStart + bandRows, h - 1) - nextStart + 1;
+		}
+		int count = 0;
+		int first = -1, last = -1;
+		for (int k = 0; k < nextRows; k++) {
+			int y = (nextStart + k) % h;
+			if (expandRow(map, y)) {
+				if (first < 0) {
+					first = k;
+				}
+				last = k;
+				count += markRow(map, y, level, dist);
+			}
+		}
+		_bandStart = first < 0 ? 0 : (nextStart + first) % h;
+		_bandRows = last - first + 1;
+		_listed = false;
+		return count;
+	}
+
+	/**
+	 * Expands the frontier (listed in _list) by one level, cell by cell.
+	 * @return the number of cells in the next level.
+	 */
+	private int expandSparse(Map map, int count, int level, int[] dist) {
+		int nextCount = 0;
+		int minRow = Integer.MAX_VALUE, maxRow = -1;
+		for (int i = 0; i < count; i++) {
+			int current = _list[i];
+			for (int d = 0; d < Map.DIRECTIONS; d++) {
+				int n = map.neighbor(current, d);
+				if (n < 0) {
+					continue;
+				}
+				int word = wordOf(map, n);
+				long bit = 1L << map.xOf(n);
+				if ((_free[word] & ~_visited[word] & bit) != 0) {
+					_visited[word] |= bit;
+					_next[word] |= bit;
+					dist[n] = level;
+					_nextList[nextCount++] = n;
+					int y = map.yOf(n);
+					minRow = Math.min(minRow, y);
+					maxRow = Math.max(maxRow, y);
+				}
+			}
+		}
+		int[] tmp = _list;
+		_list = _nextList;
+		_nextList = tmp;
+		_bandStart = nextCount == 0 ? 0 : minRow;
+		_bandRows = maxRow - minRow + 1;
+		_listed = true;
+		return nextCount;
+	}
+
+	/** Lists the cells of the frontier band in _list. */
+	private void listFrontier(Map map, int bandStart, int bandRows) {
+		int count = 0;
+		for (int k = 0; k < bandRows; k++) {
+			int y = (bandStart + k) % map.getHeight();
+			int row = y * _wordsPerRow;
+			int base = map.indexOf(0, y);
+			for (int i = 0; i < _wordsPerRow; i++) {
+				long f = _frontier[row + i];
+				while (f != 0) {
+					_list[count++] = base + (i << 6) + Long.numberOfTrailingZeros(f);
+					f &= f - 1;
+				}
+			}
+		}
+		_listed = true;
+	}
+
+	/**
+	 * Computes row y of the next level into _next.
+	 * @return true iff the row has new cells.
+	 */
+	private boolean expandRow(Map map, int y) {
+		int w = map.getWidth(), h = map.getHeight();
+		int wpr = _wordsPerRow;
+		int row = y * wpr;
+		// Rows above and below (-1 if there is none)
+		int up = y < h - 1 ? row + wpr : (map.isCyclic() ? 0 : -1);
+		int down = y > 0 ? row - wpr : (map.isCyclic() ? (h - 1) * wpr : -1);
+		for (int i = 0; i < wpr; i++) {
+			long f = _frontier[row + i];
+			// x -> x+1 and x -> x-1, carrying bits across the words of the row
+			long moved = (f << 1) | (f >>> 1);
+			if (i > 0) {
+				moved |= _frontier[row + i - 1] >>> 63;
+			}
+			if (i < wpr - 1) {
+				moved |= _frontier[row + i + 1] << 63;
+			}
+			if (up >= 0) {
+				moved |= _frontier[up + i];
+			}
+			if (down >= 0) {
+				moved |= _frontier[down + i];
+			}
+			_next[row + i] = moved;
+		}
+		if (map.isCyclic()) {
+			// Wrap between the first and the last column
+			int lastWord = row + ((w - 1) >>> 6);
+			long lastBit = 1L << (w - 1);
+			if ((_frontier[lastWord] & lastBit) != 0) {
+				_next[row] |= 1L;
+			}
+			if ((_frontier[row] & 1L) != 0) {
+				_next[lastWord] |= lastBit;
+			}
+		}
+		long any = 0;
+		for (int i = 0; i < wpr; i++) {
+			// Keep only walkable cells that were not visited yet (this also drops bits beyond the last column)
+			long n = _next[row + i] & _free[row + i] & ~_visited[row + i];
+			_next[row + i] = n;
+			any |= n;
+		}
+		return any != 0;
+	}
+
+	/**
+	 * Marks the new cells of row y (in _next) as visited at the given level.
+	 * @return the number of new cells in the row.
+	 */
+	private int markRow(Map map, int y, int level, int[] dist) {
+		int row = y * _wordsPerRow;
+		int base = map.indexOf(0, y);
+		int count = 0;
+		for (int i = 0; i < _wordsPerRow; i++) {
+			long n = _next[row + i];
+			_visited[row + i] |= n;
+			while (n != 0) {
+				dist[base + (i << 6) + Long.numberOfTrailingZeros(n)] = level;
+				n &= n - 1;
+				count++;
+			}
+		}
+		return count;
+	}
+
+	/** @return the index of the word holding the bit of the given cell. */
+	private int wordOf(Map map, int cell) {
+		return map.yOf(cell) * _wordsPerRow + (map.xOf(cell) >>> 6);
+	}
+
+	private void setBit(long[] bits, Map map, int cell) {
+		bits[wordOf(map, cell)] |= 1L << map.xOf(cell);
+	}
+}
@@ -0,0 +1,90 @@
+package client;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * A store of one byte per cell in a direct (off-heap) or memory-mapped buffer. A byte is an index into a palette of
+ * the distinct values stored so far, so a maze of a handful of cell kinds takes a quarter of the
+ * memory of an int array, none of it on the Java heap. The palette holds up to 256 values; storing
+ * one more throws, and the cells never move to the heap.
+ */
+class ByteStore extends CellStore {
+	/** The largest number of distinct values a byte can index. */
+	static final int PALETTE_SIZE = 256;
+	/** Palette entries looked up by a linear scan before the hash index is used. */
+	private static final int SCAN_LIMIT = 8;
+
+	private final ByteBuffer _cells;
+	private int[] _palette = new int[4];
+	private int _paletteCount = 0;
+	/** The palette index of every value in the palette. */
+	private final HashMap<Integer, Integer> _index = new HashMap<>();
+
+	/**
+	 * @param size the number of cells.
+	 * @param v the initial value of all the cells.
+	 */
+	ByteStore(int size, int v) {
+		// A new direct buffer is zeroed, so every cell starts as palette entry 0
+		_cells = ByteBuffer.allocateDirect(size);
+		paletteIndex(v);
+	}
+
+	/**
+	 * A store over existing cells, e.g. a memory-mapped maze file.
+	 * @param cells one byte per cell (used in place; if it is read-only, so are the cells).
+	 * @param palette the distinct values the bytes index (every byte of cells must be an index into it).
+	 */
+	ByteStore(ByteBuffer cells, int[] palette) {
+		_cells = cells;
+		for (int v : palette) {
+			paletteIndex(v);
+		}
+	}
+
+	@Override
+	int get(int cell) {
+		return _palette[_cells.get(cell) & 0xFF];
+	}
+
+	/**
+	 * @throws UnsupportedOperationException if the cells are read-only (e.g. a maze file without write permission).
+	 * @throws IllegalArgumentException if v is not in the palette and the palette is full.
+	 */
+	@Override
+	void set(int cell, int v) {
+		if (_cells.isReadOnly()) {
+			throw new UnsupportedOperationException("The cells are read-only");
+		}
+		int i = paletteIndex(v);
+		if (i < 0) {
+			throw new IllegalArgumentException("Cannot store " + v + ": the palette already holds " + PALETTE_SIZE + " values");
+		}
+		_cells.put(cell, (byte) i);
+	}
+
+	/** @return the palette index of v (added to the palette if needed), -1 if the palette is full. */
+	private int paletteIndex(int v) {
+		// Mazes use a handful of values: a short scan beats boxing a hash key
+		for (int i = 0; i < Math.min(_paletteCount, SCAN_LIMIT); i++) {
+			if (_palette[i] == v) {
+				return i;
+			}
+		}
+		Integer i = _paletteCount > SCAN_LIMIT ? _index.get(v) : null;
+		if (i != null) {
+			return i;
+		}
+		if (_paletteCount == PALETTE_SIZE) {
+			return -1;
+		}
+		if (_paletteCount == _palette.length) {
+			_palette = Arrays.copyOf(_palette, _paletteCount * 2);
+		}
+		_palette[_paletteCount] = v;
+		_index.put(v, _paletteCount);
+		return _paletteCount++;
+	}
+}
@@ -0,0 +1,17 @@
+package client;
+
+/**
+ * The storage behind a {@link Map} that does not keep its cells in an int array, e.g. a compact
+ * off-heap buffer. Cells are addressed by their
+ * row-major index (y*width + x), like every algorithm of Map, and a store translates that index to its own layout.
+ */
+abstract class CellStore {
+	/** @return the value of the given cell index. */
+	abstract int get(int cell);
+
+	/**
+	 * Sets the value of the given cell index.
+	 * @throws RuntimeException if the store cannot hold the value (the cell is unchanged).
+	 */
+	abstract void set(int cell, int v);
+}
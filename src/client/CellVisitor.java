@@ -0,0 +1,16 @@
+package client;
+
+/**
+ * A callback of a streaming BFS (see {@link BfsWorkspace#traverse(Map, Pixel2D, int, int, CellVisitor)}):
+ * it is called with every reached cell in BFS order, i.e., in non-decreasing distance, and decides
+ * whether the search goes on.
+ */
+@FunctionalInterface
+public interface CellVisitor {
+	/**
+	 * @param cell the index of the reached cell (y*width + x).
+	 * @param distance the shortest path distance of the cell from the start.
+	 * @return true to continue the search, false to stop it right away.
+	 */
+	boolean visit(int cell, int distance);
+}
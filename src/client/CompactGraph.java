@@ -0,0 +1,237 @@
+package client;
+
+/**
+ * The walkable cells of a maze as a dense graph: only the non-obstacle cells are numbered (in cell
+ * order, so vertex order is row-major order), and the neighbors of every vertex are stored in CSR
+ * form - the neighbors of vertex v are _targets[_offsets[v] .. _offsets[v+1]), in direction order,
+ * with the wrap-around neighbors of a cyclic map included. Obstacles are not in the graph at all.
+ *
+ * Searches over the graph therefore size their arrays by the number of walkable cells instead of
+ * width*height and never test a neighbor for being an obstacle, which pays off on mazes that are
+ * mostly walls. A change of the walls needs a new graph. All searches run in one queue and one set of
+ * distance arrays owned by the graph, so it is not thread-safe.
+ */
+public class CompactGraph {
+	private final int _w, _h;
+	/** _vertex[cell] is the vertex of a walkable cell, -1 for obstacles. */
+	private final int[] _vertex;
+	/** _cell[v] is the cell index (y*width + x) of vertex v. */
+	private final int[] _cell;
+	private final int[] _offsets;
+	private final int[] _targets;
+
+	/** BFS state over the vertices. */
+	private final int[] _queue, _dist, _parent;
+	private final EpochMarks _marks;
+	private int _count = 0;
+
+	/**
+	 * Builds the graph of the given maze.
+	 * @param map the maze; its obstacle cells get no vertex.
+	 * @param obsColor the color representing obstacles.
+	 */
+	public CompactGraph(Map2D map, int obsColor) {
+		Map grid = new Map(map.getMap());
+		grid.setCyclic(map.isCyclic());
+		_w = grid.getWidth();
+		_h = grid.getHeight();
+		int n = grid.size();
+		_vertex = new int[n];
+		int k = 0;
+		for (int cell = 0; cell < n; cell++) {
+			_vertex[cell] = grid.valueAt(cell) == obsColor ? -1 : k++;
+		}
+		_cell = new int[k];
+		_offsets = new int[k + 1];
+		int arcs = 0;
+		for (int cell = 0; cell < n; cell++) {
+			int v = _vertex[cell];
+			if (v < 0) {
+				continue;
+			}
+			_cell[v] = cell;
+			for (int d = 0; d < Map.DIRECTIONS; d++) {
+				int m = grid.neighbor(cell, d);
+				if (m >= 0 && _vertex[m] >= 0) {
+					arcs++;
+				}
+			}
+			_offsets[v + 1] = arcs;
+		}
+		_targets = new int[arcs];
+		for (int v = 0; v < k; v++) {
+			int arc = _offsets[v];
+			for (int d = 0; d < Map.DIRECTIONS; d++) {
+				int m = grid.neighbor(_cell[v], d);
+				if (m >= 0 && _vertex[m] >= 0) {
+					_targets[arc++] = _vertex[m];
+				}
+			}
+		}
+		_queue = new int[k];
+		_dist = new int[k];
+		_parent = new int[k];
+		_marks = new EpochMarks(k);
+	}
+
+	/** @return the number of vertices (walkable cells). */
+	public int vertexCount() {return _cell.length;}
+
+	/** @return the number of arcs (every edge between two cells is counted in both directions). */
+	public int arcCount() {return _targets.length;}
+
+	/** @return the vertex of the cell (x,y), -1 if it is outside the map or an obstacle. */
+	public int vertexOf(int x, int y) {
+		return x < 0 || y < 0 || x >= _w || y >= _h ? -1 : _vertex[y * _w + x];
+	}
+
+	/** @return the vertex of p, -1 if it is outside the map or an obstacle. */
+	public int vertexOf(Pixel2D p) {return vertexOf(p.getX(), p.getY());}
+
+	/** @return the x coordinate of vertex v. */
+	public int getX(int v) {return _cell[v] % _w;}
+
+	/** @return the y coordinate of vertex v. */
+	public int getY(int v) {return _cell[v] / _w;}
+
+	/** @return the number of neighbors of vertex v. */
+	public int degree(int v) {return _offsets[v + 1] - _offsets[v];}
+
+	/**
+	 * @param v a vertex.
+	 * @param i the neighbor ordinal (0 .. degree(v)-1).
+	 * @return the i-th neighbor of v.
+	 */
+	public int neighbor(int v, int i) {
+		if (i < 0 || i >= degree(v)) {
+			throw new IndexOutOfBoundsException("Neighbor " + i + " of a vertex of degree " + degree(v));
+		}
+		return _targets[_offsets[v] + i];
+	}
+
+	/**
+	 * Streams a BFS from start to a visitor, like {@link Map#traverse(Pixel2D, int, int, CellVisitor)}
+	 * (the visitor gets cell indices y*width + x of the maze).
+	 * @param start the source (starting) point.
+	 * @param maxDistance the largest distance to reach (Integer.MAX_VALUE for no bound).
+	 * @param visitor called with every reached cell in BFS order; returns false to stop the search.
+	 * @return the number of cells passed to the visitor, 0 if start is outside the map or an obstacle.
+	 */
+	public int traverse(Pixel2D start, int maxDistance, CellVisitor visitor) {
+		int source = vertexOf(start);
+		if (source < 0 || maxDistance < 0) {
+			return 0;
+		}
+		begin(source);
+		int head = 0;
+		while (head < _count) {
+			int v = _queue[head++];
+			int dist = _dist[v];
+			if (!visitor.visit(_cell[v], dist)) {
+				break;
+			}
+			if (dist < maxDistance) {
+				expand(v);
+			}
+		}
+		return head;
+	}
+
+	/**
+	 * Same as {@link Map#allDistance(Pixel2D, int)} for the maze of this graph.
+	 * @param start the source (starting) point.
+	 * @return a new map with the distance of each entry from start (-1 for obstacles and unreachable entries).
+	 */
+	public Map2D allDistance(Pixel2D start) {
+		Map ans = new Map(_w, _h, -1);
+		int source = vertexOf(start);
+		if (source >= 0) {
+			search(source, -1);
+			for (int i = 0; i < _count; i++) {
+				int v = _queue[i];
+				ans.setValueAt(_cell[v], _dist[v]);
+			}
+		}
+		return ans;
+	}
+
+	/**
+	 * Same as {@link Map#shortestPath(Pixel2D, Pixel2D, int)} for the maze of this graph.
+	 * @param p1 first coordinate (start point).
+	 * @param p2 second coordinate (end point).
+	 * @return the shortest path as an array of consecutive pixels, null if there is none.
+	 */
+	public Pixel2D[] shortestPath(Pixel2D p1, Pixel2D p2) {
+		int source = vertexOf(p1), target = vertexOf(p2);
+		if (source < 0 || target < 0 || !search(source, target)) {
+			return null;
+		}
+		Pixel2D[] path = new Pixel2D[_dist[target] + 1];
+		for (int v = target, i = path.length - 1; i >= 0; v = _parent[v], i--) {
+			path[i] = PackedPixel.of(getX(v), getY(v));
+		}
+		return path;
+	}
+
+	////////////////////// Package-private search API ///////////////////////
+
+	/**
+	 * Runs a BFS from source, stopping as soon as target is dequeued.
+	 * @param source the source vertex.
+	 * @param target the target vertex, or -1 to explore every reachable vertex.
+	 * @return true iff target was reached.
+	 */
+	boolean search(int source, int target) {
+		begin(source);
+		int head = 0;
+		while (head < _count) {
+			int v = _queue[head++];
+			if (v == target) {
+				return true;
+			}
+			expand(v);
+		}
+		return false;
+	}
+
+	/** @return the number of vertices reached by the last search. */
+	int count() {return _count;}
+
+	/** @return the i-th vertex reached by the last search, in BFS order. */
+	int visitedVertex(int i) {return _queue[i];}
+
+	/** @return the distance of vertex v in the last search, -1 if it was not reached. */
+	int distance(int v) {return _marks.isMarked(v) ? _dist[v] : -1;}
+
+	/** @return the vertex of a cell index, -1 for obstacles. */
+	int vertexOfCell(int cell) {return _vertex[cell];}
+
+	/** @return the cell index of vertex v. */
+	int cellOf(int v) {return _cell[v];}
+
+	////////////////////// Private Methods ///////////////////////
+
+	/** Starts a new search with source as its only queued vertex. */
+	private void begin(int source) {
+		_marks.begin();
+		_marks.mark(source);
+		_dist[source] = 0;
+		_parent[source] = source;
+		_queue[0] = source;
+		_count = 1;
+	}
+
+	/** Queues the unvisited neighbors of v. */
+	private void expand(int v) {
+		int next = _dist[v] + 1;
+		for (int arc = _offsets[v], end = _offsets[v + 1]; arc < end; arc++) {
+			int u = _targets[arc];
+			if (!_marks.isMarked(u)) {
+				_marks.mark(u);
+				_dist[u] = next;
+				_parent[u] = v;
+				_queue[_count++] = u;
+			}
+		}
+	}
+}
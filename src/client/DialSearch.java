@@ -0,0 +1,170 @@
+package client;
+
+import java.util.Arrays;
+
+/**
+ * Weighted shortest paths over the cells of a {@link Map}, where entering a cell costs a small
+ * non-negative integer (e.g. 1 plus a danger penalty for the cells near a ghost).
+ * Dial's algorithm keeps the open cells in a circular array of maxCost+1 buckets, one per pending
+ * distance, instead of a comparison heap: a search costs O(cells + edges + largest distance).
+ *
+ * Besides the distance of every cell the search records the first step from the source towards it,
+ * so a caller gets "where to go next" for any target in O(1) after a single search.
+ * An instance holds only the result of its latest run, which the next run overwrites; give each thread its own.
+ */
+public class DialSearch {
+	/** The largest supported cost of entering a cell. */
+	public static final int MAX_COST = 1 << 16;
+
+	private int[] _dist = new int[0];
+	/** _first[c] is the neighbor of the source that starts the best path to c (the source for itself). */
+	private int[] _first = new int[0];
+	/** The cells that have a distance in this search, and the cells whose distance is final. */
+	private final EpochMarks _reached = new EpochMarks(0);
+	private final EpochMarks _done = new EpochMarks(0);
+	/** Bucket lists: _bucket[d % buckets] is the first entry of distance d, entries are linked by _entryNext. */
+	private int[] _bucket = new int[0];
+	private int[] _entryCell = new int[16];
+	private int[] _entryNext = new int[16];
+	private int _entries = 0;
+	private Map _map;
+	private int _source = -1;
+
+	public DialSearch() {}
+
+	/**
+	 * Computes the cheapest path costs from source to every cell.
+	 * @param map the map to search.
+	 * @param source the source point (its own cost is not paid, but it must not be impassable).
+	 * @param cost the cost of entering each cell, indexed by y*width + x; a negative cost marks an impassable cell.
+	 * @return the number of reachable cells (including source), 0 if source is outside the map or impassable.
+	 * @throws IllegalArgumentException if cost does not have an entry per cell or a cost exceeds MAX_COST.
+	 */
+	public int run(Map map, Pixel2D source, int[] cost) {
+		int n = map.size();
+		if (cost.length != n) {
+			throw new IllegalArgumentException("Expected " + n + " cell costs, got " + cost.length);
+		}
+		int maxCost = 0;
+		for (int c : cost) {
+			maxCost = Math.max(maxCost, c);
+		}
+		if (maxCost > MAX_COST) {
+			throw new IllegalArgumentException("Cell cost " + maxCost + " exceeds " + MAX_COST);
+		}
+		begin(map, maxCost + 1);
+		if (!map.isInside(source) || cost[map.indexOf(source.getX(), source.getY())] < 0) {
+			return 0;
+		}
+		_source = map.indexOf(source.getX(), source.getY());
+		int buckets = maxCost + 1;
+		relax(_source, 0, _source, buckets);
+		int pending = 1, reached = 0;
+		for (int d = 0; pending > 0; d++) {
+			int b = d % buckets;
+			// Every entry of this bucket has distance d (pending distances are in d..d+maxCost)
+			while (_bucket[b] >= 0) {
+				int e = _bucket[b];
+				_bucket[b] = _entryNext[e];
+				pending--;
+				int current = _entryCell[e];
+				if (_done.isMarked(current) || _dist[current] != d) {
+					// Settled already, or a stale entry of an improved cell
+					continue;
+				}
+				_done.mark(current);
+				reached++;
+				for (int dir = 0; dir < Map.DIRECTIONS; dir++) {
+					int next = map.neighbor(current, dir);
+					if (next >= 0 && cost[next] >= 0 && relax(next, d + cost[next], current == _source ? next : _first[current], buckets)) {
+						pending++;
+					}
+				}
+			}
+		}
+		return reached;
+	}
+
+	/**
+	 * @param p a coordinate of the last searched map.
+	 * @return the cheapest path cost from the source to p, -1 if p was not reached.
+	 */
+	public int distance(Pixel2D p) {
+		if (_map == null || !_map.isInside(p)) {
+			return -1;
+		}
+		int cell = _map.indexOf(p.getX(), p.getY());
+		return _done.isMarked(cell) ? _dist[cell] : -1;
+	}
+
+	/**
+	 * @param target a coordinate of the last searched map.
+	 * @return the neighbor of the source that starts a cheapest path to target, null if target is the source or was not reached.
+	 */
+	public Pixel2D firstStep(Pixel2D target) {
+		if (_map == null || !_map.isInside(target)) {
+			return null;
+		}
+		int cell = _map.indexOf(target.getX(), target.getY());
+		if (cell == _source || !_done.isMarked(cell)) {
+			return null;
+		}
+		int first = _first[cell];
+		return PackedPixel.of(_map.xOf(first), _map.yOf(first));
+	}
+
+	/**
+	 * @return a new map with the cost of each entry found by the last search (-1 for entries not reached).
+	 */
+	public Map2D distanceMap() {
+		Map ans = new Map(_map.getWidth(), _map.getHeight(), -1);
+		ans.setCyclic(_map.isCyclic());
+		for (int cell = 0; cell < _map.size(); cell++) {
+			if (_done.isMarked(cell)) {
+				ans.setValueAt(cell, _dist[cell]);
+			}
+		}
+		return ans;
+	}
+
+	////////////////////// Private Methods ///////////////////////
+
+	private void begin(Map map, int buckets) {
+		_map = map;
+		_source = -1;
+		_entries = 0;
+		int n = map.size();
+		if (_reached.size() < n) {
+			_dist = new int[n];
+			_first = new int[n];
+		}
+		_reached.begin(n);
+		_done.begin(n);
+		if (_bucket.length < buckets) {
+			_bucket = new int[buckets];
+		}
+		Arrays.fill(_bucket, 0, buckets, -1);
+	}
+
+	/**
+	 * Lowers the distance of a cell and files it in the bucket of its new distance.
+	 * @return true iff the distance was lowered (and an entry was added).
+	 */
+	private boolean relax(int cell, int dist, int first, int buckets) {
+		if (_reached.isMarked(cell) && _dist[cell] <= dist) {
+			return false;
+		}
+		_reached.mark(cell);
+		_dist[cell] = dist;
+		_first[cell] = first;
+		if (_entries == _entryCell.length) {
+			_entryCell = Arrays.copyOf(_entryCell, _entries * 2);
+			_entryNext = Arrays.copyOf(_entryNext, _entries * 2);
+		}
+		int b = dist % buckets;
+		_entryCell[_entries] = cell;
+		_entryNext[_entries] = _bucket[b];
+		_bucket[b] = _entries++;
+		return true;
+	}
+}
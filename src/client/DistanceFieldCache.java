@@ -0,0 +1,144 @@
+package client;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+
+/**
+ * A bounded LRU cache of the BFS distance fields of one {@link Map}, keyed by
+ * (source cell, obstacle color, passability version of that color).
+ * The cache attaches itself to the map, and the map reports every change of its cells: a change
+ * from or to an obstacle color advances the version of that color, so the fields computed with it
+ * are never returned again (they age out of the LRU order), while any other change - e.g. eating a
+ * dot when the obstacles are walls - keeps every field valid. Resizing the map (init) or changing
+ * its cyclic flag drops all the fields.
+ *
+ * Hits, misses and evictions are counted for tuning the capacity.
+ */
+public class DistanceFieldCache {
+	/** Cache key: a distance field is valid for its source and obstacle color while the version matches. */
+	private record Key(int cell, int obsColor, int version) {}
+
+	private final Map _map;
+	private final int _capacity;
+	private final LinkedHashMap<Key, int[]> _fields;
+	/** The passability version of every obstacle color that has fields in the cache. */
+	private final HashMap<Integer, Integer> _versions = new HashMap<>();
+	private final BfsWorkspace _search = new BfsWorkspace();
+	private long _hits = 0, _misses = 0, _evictions = 0;
+
+	/**
+	 * Creates a cache for the given map (replacing a cache attached to it before).
+	 * @param map the map whose distance fields are cached.
+	 * @param capacity the maximal number of cached fields.
+	 * @throws IllegalArgumentException if capacity is not positive.
+	 */
+	public DistanceFieldCache(Map map, int capacity) {
+		if (capacity <= 0) {
+			throw new IllegalArgumentException("Cache capacity must be positive: " + capacity);
+		}
+		_map = map;
+		_capacity = capacity;
+		_fields = new LinkedHashMap<>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(java.util.Map.Entry<Key, int[]> eldest) {
+				if (size() > _capacity) {
+					_evictions++;
+					return true;
+				}
+				return false;
+			}
+		};
+		map.setDistanceCache(this);
+	}
+
+	/**
+	 * Same as {@link Map#allDistance(Pixel2D, int)}, answered from the cache when possible.
+	 * @param start the source (starting) point.
+	 * @param obsColor the color representing obstacles.
+	 * @return a new map with all the shortest path distances from start (the cached field is not exposed).
+	 */
+	public Map2D allDistance(Pixel2D start, int obsColor) {
+		Map ans = new Map(_map.getWidth(), _map.getHeight(), -1);
+		int[] field = field(start, obsColor);
+		if (field != null) {
+			for (int cell = 0; cell < field.length; cell++) {
+				ans.setValueAt(cell, field[cell]);
+			}
+		}
+		return ans;
+	}
+
+	/**
+	 * @param source the source point.
+	 * @param target the target point.
+	 * @param obsColor the color representing obstacles.
+	 * @return the shortest path distance from source to target, -1 if either is outside the map or an obstacle,
+	 * or if target is not reachable. Repeated queries from the same source cost O(1).
+	 */
+	public int distance(Pixel2D source, Pixel2D target, int obsColor) {
+		int[] field = field(source, obsColor);
+		if (field == null || !_map.isInside(target)) {
+			return -1;
+		}
+		return field[_map.indexOf(target.getX(), target.getY())];
+	}
+
+	/** @return the number of queries answered from the cache. */
+	public long hits() {return _hits;}
+
+	/** @return the number of queries that ran a BFS. */
+	public long misses() {return _misses;}
+
+	/** @return the number of fields dropped to respect the capacity. */
+	public long evictions() {return _evictions;}
+
+	/** @return the number of cached fields (including fields of an old version that did not age out yet). */
+	public int size() {return _fields.size();}
+
+	/** Drops all the cached fields (the counters are kept). */
+	public void clear() {
+		_fields.clear();
+		_versions.clear();
+	}
+
+	////////////////////// Map notifications ///////////////////////
+
+	/**
+	 * Called by the map when cells change from oldValue to newValue: the fields of both colors
+	 * (as obstacle colors) become stale.
+	 */
+	void cellsChanged(int oldValue, int newValue) {
+		_versions.computeIfPresent(oldValue, (color, version) -> version + 1);
+		if (newValue != oldValue) {
+			_versions.computeIfPresent(newValue, (color, version) -> version + 1);
+		}
+	}
+
+	////////////////////// Private Methods ///////////////////////
+
+	/** @return the distance field from start, null if start is outside the map or an obstacle. */
+	private int[] field(Pixel2D start, int obsColor) {
+		if (!_map.isInside(start) || _map.getPixel(start) == obsColor) {
+			return null;
+		}
+		int cell = _map.indexOf(start.getX(), start.getY());
+		Key key = new Key(cell, obsColor, _versions.computeIfAbsent(obsColor, color -> 0));
+		int[] field = _fields.get(key);
+		if (field != null) {
+			_hits++;
+			return field;
+		}
+		_misses++;
+		field = new int[_map.size()];
+		Arrays.fill(field, -1);
+		_search.begin(_map);
+		_search.search(cell, -1, obsColor);
+		for (int i = 0; i < _search.count(); i++) {
+			int c = _search.visitedCell(i);
+			field[c] = _search.distance(c);
+		}
+		_fields.put(key, field);
+		return field;
+	}
+}
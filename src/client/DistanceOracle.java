@@ -0,0 +1,197 @@
+package client;
+
+import java.util.Arrays;
+
+/**
+ * Precomputed all-pairs shortest path distances between the walkable cells of a static maze.
+ * The oracle is built once from a Map2D and an obstacle color (one BFS per walkable cell) and
+ * afterwards answers "distance from a to b" and "first step from a towards b" in O(1),
+ * honoring the cyclic flag of the map it was built from.
+ *
+ * Walkable cells are numbered densely, and the distances are kept in a k*k table of
+ * unsigned bytes when every distance is known to fit in one, or of chars (unsigned 16 bits) otherwise.
+ * The table takes k*k bytes or chars, so callers should cap k (see Ex3Algo).
+ * Only the obstacles matter: cells of any other color may change freely (e.g. eaten dots),
+ * while a change of the obstacles requires a new oracle (see {@link #matches(Map2D)}).
+ */
+public class DistanceOracle {
+	/** Table entry of an unreachable pair in the byte table. */
+	private static final int BYTE_UNREACHABLE = 0xFF;
+	/** Table entry of an unreachable pair in the char table. */
+	private static final int CHAR_UNREACHABLE = 0xFFFF;
+
+	/** The oracle's own copy of the maze, so later changes to the caller's map cannot skew the table. */
+	private final Map _grid;
+	private final int _obsColor;
+	/** _dense[cell] is the dense index of a walkable cell, -1 for obstacles. */
+	private final int[] _dense;
+	/** _cells[i] is the cell index of the i-th walkable cell. */
+	private final int[] _cells;
+	/** Distance table (row = source, column = target), exactly one of the two is used. */
+	private byte[] _byteTable;
+	private char[] _charTable;
+
+	/**
+	 * Builds the distance table of the given map.
+	 * @param map the maze; dots and other non-wall values may change afterwards, see {@link #matches(Map2D)}.
+	 * @param obsColor the color representing obstacles.
+	 * @throws IllegalArgumentException if the maze has too many walkable cells for a k*k table.
+	 */
+	public DistanceOracle(Map2D map, int obsColor) {
+		_grid = new Map(map.getMap());
+		_grid.setCyclic(map.isCyclic());
+		_obsColor = obsColor;
+
+		// Number the walkable cells
+		_dense = new int[_grid.size()];
+		int k = 0;
+		for (int cell = 0; cell < _dense.length; cell++) {
+			_dense[cell] = _grid.valueAt(cell) == obsColor ? -1 : k++;
+		}
+		if ((long) k * k > Integer.MAX_VALUE - 8) {
+			throw new IllegalArgumentException("Too many walkable cells for a distance table: " + k);
+		}
+		_cells = new int[k];
+		for (int cell = 0; cell < _dense.length; cell++) {
+			if (_dense[cell] >= 0) {
+				_cells[_dense[cell]] = cell;
+			}
+		}
+
+		// One BFS per walkable cell fills one row of the table; the compact graph numbers the
+		// walkable cells like _dense, so its searches touch k-sized arrays and skip the obstacles
+		CompactGraph graph = new CompactGraph(_grid, obsColor);
+
+		// Pick the table width up front (never holding two tables): no distance exceeds k-1, nor twice
+		// the eccentricity of any cell of its component, which one BFS per component measures
+		int bound = k - 1;
+		if (bound >= BYTE_UNREACHABLE) {
+			bound = 0;
+			boolean[] seen = new boolean[k];
+			for (int i = 0; i < k; i++) {
+				if (seen[i]) {
+					continue;
+				}
+				graph.search(i, -1);
+				for (int j = 0; j < graph.count(); j++) {
+					seen[graph.visitedVertex(j)] = true;
+				}
+				int eccentricity = graph.distance(graph.visitedVertex(graph.count() - 1));
+				bound = Math.max(bound, 2 * eccentricity);
+			}
+		}
+		if (bound < BYTE_UNREACHABLE) {
+			_byteTable = new byte[k * k];
+			Arrays.fill(_byteTable, (byte) BYTE_UNREACHABLE);
+		}
+		else {
+			_charTable = new char[k * k];
+			Arrays.fill(_charTable, (char) CHAR_UNREACHABLE);
+		}
+
+		for (int i = 0; i < k; i++) {
+			graph.search(i, -1);
+			int row = i * k;
+			for (int j = 0; j < graph.count(); j++) {
+				int v = graph.visitedVertex(j);
+				int d = graph.distance(v);
+				if (_byteTable != null) {
+					_byteTable[row + v] = (byte) d;
+				}
+				else {
+					_charTable[row + v] = (char) d;
+				}
+			}
+		}
+	}
+
+	/**
+	 * @param a the source coordinate.
+	 * @param b the target coordinate.
+	 * @return the shortest path distance (obstacle avoiding) from a to b,
+	 * -1 if either is outside the map or an obstacle, or if b is not reachable from a.
+	 */
+	public int distance(Pixel2D a, Pixel2D b) {
+		int i = denseIndex(a), j = denseIndex(b);
+		if (i < 0 || j < 0) {
+			return -1;
+		}
+		return distance(i, j);
+	}
+
+	/**
+	 * Returns the neighbor of from that starts a shortest path from "from" to "to".
+	 * @param from the source coordinate.
+	 * @param to the target coordinate.
+	 * @return the next pixel on a shortest path, null if from == to or there is no path.
+	 */
+	public Pixel2D nextStep(Pixel2D from, Pixel2D to) {
+		int i = denseIndex(from), j = denseIndex(to);
+		if (i < 0 || j < 0) {
+			return null;
+		}
+		int d = distance(i, j);
+		if (d <= 0) {
+			return null;
+		}
+		int cell = _cells[i];
+		for (int dir = 0; dir < Map.DIRECTIONS; dir++) {
+			int n = _grid.neighbor(cell, dir);
+			if (n >= 0 && _dense[n] >= 0 && distance(_dense[n], j) == d - 1) {
+				return PackedPixel.of(_grid.xOf(n), _grid.yOf(n));
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Checks whether this oracle is valid for the given map, i.e., the map has the same
+	 * dimensions, cyclic flag and obstacles as the map this oracle was built from.
+	 * A {@link Map} is compared by its passability fingerprint, which it keeps up to date as it
+	 * changes, so checking the same map again costs O(1) (a false match has probability about 2^-64).
+	 * @param map the map to check.
+	 * @return true iff the distances of this oracle are the distances in map.
+	 */
+	public boolean matches(Map2D map) {
+		if (map.getWidth() != _grid.getWidth() || map.getHeight() != _grid.getHeight()
+				|| map.isCyclic() != _grid.isCyclic()) {
+			return false;
+		}
+		if (map instanceof Map m) {
+			return m.passabilityFingerprint(_obsColor) == _grid.passabilityFingerprint(_obsColor);
+		}
+		for (int cell = 0; cell < _dense.length; cell++) {
+			boolean obstacle = map.getPixel(_grid.xOf(cell), _grid.yOf(cell)) == _obsColor;
+			if (obstacle != (_dense[cell] < 0)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * @return the number of walkable (non-obstacle) cells.
+	 */
+	public int walkableCount() {return _cells.length;}
+
+	////////////////////// Private Methods ///////////////////////
+
+	/** @return the dense index of p, -1 if p is outside the map or an obstacle. */
+	private int denseIndex(Pixel2D p) {
+		if (!_grid.isInside(p)) {
+			return -1;
+		}
+		return _dense[_grid.indexOf(p.getX(), p.getY())];
+	}
+
+	/** @return the distance between two walkable cells given by their dense indices, -1 if unreachable. */
+	private int distance(int i, int j) {
+		int entry = i * _cells.length + j;
+		if (_byteTable != null) {
+			int d = _byteTable[entry] & 0xFF;
+			return d == BYTE_UNREACHABLE ? -1 : d;
+		}
+		int d = _charTable[entry];
+		return d == CHAR_UNREACHABLE ? -1 : d;
+	}
+}
@@ -0,0 +1,168 @@
+package client;
+
+import java.util.Arrays;
+
+/**
+ * The shortest path distances (obstacle avoiding) from a moving source to every cell of a maze,
+ * maintained incrementally while the source moves one cell at a time (e.g. Pacman, once per tick).
+ *
+ * When the source moves to a neighbor every distance changes by at most one, so the field first
+ * raises all distances by one at once (the distances are stored relative to a common offset) and then
+ * repairs, with a BFS from the new source, only the cells that got closer or stayed at the same distance.
+ * The cells behind the source are never touched. A repair that grows beyond half of the reachable cells
+ * is abandoned for a full BFS, as is any update that is not a move to a neighbor.
+ *
+ * Only the obstacles of the map matter: cells of any other color may change freely, while a change of the
+ * obstacles (or a different maze) requires {@link #invalidate()} before the next update.
+ */
+public class DynamicDistanceField {
+	/** Raw value of a cell that is not reachable from the source (or is an obstacle). */
+	private static final int UNREACHABLE = Integer.MIN_VALUE;
+	/** A full BFS resets the offset once it gets this large, so raw values never overflow. */
+	private static final int MAX_OFFSET = 1 << 24;
+
+	/** The distance of a reachable cell is _raw[cell] + _offset. */
+	private int[] _raw = new int[0];
+	private int _offset = 0;
+	private int[] _queue = new int[0];
+	private final BfsWorkspace _search = new BfsWorkspace();
+	/** The map of the last update (for the neighbor structure), null before the first update. */
+	private Map _map;
+	private int _obsColor;
+	/** The source cell, -1 if the field is not valid. */
+	private int _source = -1;
+	/** Number of cells reachable from the source. */
+	private int _reachable = 0;
+	/** Number of cells whose distance was written by the last update. */
+	private int _lastCost = 0;
+
+	public DynamicDistanceField() {}
+
+	/**
+	 * Moves the source of this field and brings the distances up to date.
+	 * @param map the maze (of the same obstacles as the previous update, unless {@link #invalidate()} was called).
+	 * @param source the new source point.
+	 * @param obsColor the color representing obstacles.
+	 */
+	public void update(Map map, Pixel2D source, int obsColor) {
+		if (!map.isInside(source) || map.getPixel(source) == obsColor) {
+			recompute(map, -1, obsColor);
+			return;
+		}
+		int cell = map.indexOf(source.getX(), source.getY());
+		boolean sameMaze = _source >= 0 && _map != null && obsColor == _obsColor
+				&& map.getWidth() == _map.getWidth() && map.getHeight() == _map.getHeight()
+				&& map.isCyclic() == _map.isCyclic();
+		if (sameMaze && cell == _source) {
+			_map = map;
+			_lastCost = 0;
+			return;
+		}
+		if (!sameMaze || !isNeighbor(map, _source, cell) || _offset >= MAX_OFFSET || !repair(map, cell)) {
+			recompute(map, cell, obsColor);
+		}
+	}
+
+	/**
+	 * Forgets the current distances, so the next update runs a full BFS (required after the obstacles change).
+	 */
+	public void invalidate() {
+		_source = -1;
+	}
+
+	/**
+	 * @param x the x coordinate.
+	 * @param y the y coordinate.
+	 * @return the distance of (x,y) from the source, -1 if it is outside the map, an obstacle or not reachable.
+	 */
+	public int distance(int x, int y) {
+		if (_source < 0 || x < 0 || y < 0 || x >= _map.getWidth() || y >= _map.getHeight()) {
+			return -1;
+		}
+		int raw = _raw[_map.indexOf(x, y)];
+		return raw == UNREACHABLE ? -1 : raw + _offset;
+	}
+
+	/**
+	 * @param p a coordinate of the maze.
+	 * @return the distance of p from the source, -1 if it is outside the map, an obstacle or not reachable.
+	 */
+	public int distance(Pixel2D p) {
+		return distance(p.getX(), p.getY());
+	}
+
+	/**
+	 * @return the number of cells whose distance was written by the last update
+	 * (all the reachable cells after a full BFS, only the repaired cells after a move to a neighbor).
+	 */
+	public int lastUpdateCost() {return _lastCost;}
+
+	////////////////////// Private Methods ///////////////////////
+
+	private static boolean isNeighbor(Map map, int from, int to) {
+		for (int d = 0; d < Map.DIRECTIONS; d++) {
+			if (map.neighbor(from, d) == to) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/** Recomputes every distance with a full BFS from source (-1 for none). */
+	private void recompute(Map map, int source, int obsColor) {
+		_map = map;
+		_obsColor = obsColor;
+		_source = source;
+		_offset = 0;
+		int n = map.size();
+		if (_raw.length != n) {
+			_raw = new int[n];
+			_queue = new int[n];
+		}
+		Arrays.fill(_raw, UNREACHABLE);
+		_reachable = 0;
+		if (source >= 0) {
+			_search.begin(map);
+			_search.search(source, -1, obsColor);
+			_reachable = _search.count();
+			for (int i = 0; i < _reachable; i++) {
+				int cell = _search.visitedCell(i);
+				_raw[cell] = _search.distance(cell);
+			}
+		}
+		_lastCost = _reachable;
+	}
+
+	/**
+	 * Moves the source to a neighboring cell: raises every distance by one (an upper bound of the new
+	 * distance) and lowers the cells that are closer than that with a BFS from the new source.
+	 * The new source is in the component of the old one, so the reachable cells stay the same.
+	 * @return true iff the repair finished within its budget (otherwise the field must be recomputed).
+	 */
+	private boolean repair(Map map, int source) {
+		_map = map;
+		_offset++;
+		int budget = _reachable / 2;
+		int head = 0, tail = 0;
+		_raw[source] = -_offset;
+		_queue[tail++] = source;
+		while (head < tail) {
+			int current = _queue[head++];
+			int next = _raw[current] + _offset + 1;
+			for (int d = 0; d < Map.DIRECTIONS; d++) {
+				int n = map.neighbor(current, d);
+				// Obstacles are UNREACHABLE, so they never get lower
+				if (n >= 0 && _raw[n] != UNREACHABLE && next < _raw[n] + _offset) {
+					_raw[n] = next - _offset;
+					if (tail == budget) {
+						return false;
+					}
+					_queue[tail++] = n;
+				}
+			}
+		}
+		_source = source;
+		_lastCost = tail;
+		return true;
+	}
+}
@@ -0,0 +1,45 @@
+package client;
+
+import java.util.Arrays;
+
+/**
+ * Visited marks over the cells (or vertices) of a search, cleared in O(1): an element is marked iff
+ * its stamp equals the current epoch, so starting a new search just advances the epoch. The stamps
+ * are zeroed only when the epoch wraps around.
+ */
+class EpochMarks {
+	private int[] _stamp;
+	private int _epoch = 1;
+
+	/** @param n the number of elements, all unmarked. */
+	EpochMarks(int n) {
+		_stamp = new int[n];
+	}
+
+	/** @return the number of elements. */
+	int size() {return _stamp.length;}
+
+	/** Unmarks every element. */
+	void begin() {
+		if (_epoch == Integer.MAX_VALUE) {
+			// Stamps of old searches may collide with new epochs, so clear them once
+			Arrays.fill(_stamp, 0);
+			_epoch = 0;
+		}
+		_epoch++;
+	}
+
+	/** Unmarks every element, first growing to n elements if there are fewer. */
+	void begin(int n) {
+		if (_stamp.length < n) {
+			_stamp = new int[n];
+			_epoch = 1;
+			return;
+		}
+		begin();
+	}
+
+	void mark(int i) {_stamp[i] = _epoch;}
+
+	boolean isMarked(int i) {return _stamp[i] == _epoch;}
+}
@@ -7,6 +7,7 @@ import server.PacmanGame;
 import java.awt.*;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.IntPredicate;
 
 /**
  * FSM-based Pacman algorithm that maximizes score while minimizing death risk.
@@ -18,9 +19,12 @@ import java.util.List;
  * - EAT_DOTS: Default state - collect dots efficiently
  * 
  * Key behaviors:
- * - Avoids dead-end corridors when escaping
+ * - Avoids dead-end corridors when escaping (MazeStructure pocket depths, built once per maze)
  * - Preserves power pellets when ghosts are already vulnerable
  * - Uses BFS (via Map class) for shortest path calculations
+ * - Uses a DistanceOracle (built once per maze, if it has at most ORACLE_MAX_WALKABLE walkable cells)
+ *   for point-to-point distances and steps; larger mazes fall back to direct BFS searches
+ * - Keeps Pacman's distance field up to date incrementally (DynamicDistanceField)
  */
 public class Ex3Algo implements server.PacManAlgo {
 
@@ -38,10 +42,15 @@ public class Ex3Algo implements server.PacManAlgo {
 	/** Spawn area radius - ghosts inside this area are ignored for chasing */
 	private static final int SPAWN_RADIUS = 3;
 	
+	/** Most walkable cells for which a DistanceOracle is built (its table takes k*k entries) */
+	private static final int ORACLE_MAX_WALKABLE = 2048;
+	
 	// Cell colors for map interpretation
 	private static final int OBSTACLE_COLOR = Game.getIntColor(Color.BLUE, 0);
 	private static final int DOT_COLOR = Game.getIntColor(Color.PINK, 0);
 	private static final int POWER_PELLET_COLOR = Game.getIntColor(Color.GREEN, 0);
+	private static final IntPredicate IS_DOT = v -> v == DOT_COLOR;
+	private static final IntPredicate IS_POWER_PELLET = v -> v == POWER_PELLET_COLOR;
 
 	// ==================== STATE ====================
 	
@@ -49,10 +58,54 @@ public class Ex3Algo implements server.PacManAlgo {
 	
 	private int boardWidth;
 	private int boardHeight;
+	
+	/** BFS state reused by every search of every move (avoids per-search allocations) */
+	private final BfsWorkspace search = new BfsWorkspace();
+	
+	/** All-pairs distances of the current maze (walls never change during a game), null if the maze is too large */
+	private DistanceOracle oracle;
+	
+	/** Passability fingerprint of the maze the oracle and structure were built for */
+	private long mazeFingerprint;
+	
+	/** First and second arrivals of the ESCAPE tie-breaker targets (closest dots or pellets) */
+	private final Territory tieBreakTargets = new Territory();
+	
+	/** Cells of the dangerous ghosts (the first ghostCount entries), looked for by ESCAPE when there is no oracle */
+	private int[] ghostCells = new int[4];
+	private int ghostCount;
+	
+	/** Distance of the ghost cell the last ghostFinder search stopped at, -1 if it reached none */
+	private int closestGhost;
+	
+	/** Stops a streamed BFS at the first ghost cell it reaches, which is the closest one */
+	private final CellVisitor ghostFinder = (cell, distance) -> {
+		for (int i = 0; i < ghostCount; i++) {
+			if (ghostCells[i] == cell) {
+				closestGhost = distance;
+				return false;
+			}
+		}
+		return true;
+	};
+	
+	/** Articulation points and dead-end pockets of the current maze */
+	private MazeStructure structure;
+	
+	/** Path buffer reused by every path search of every move */
+	private final IntPath path = new IntPath();
+	
+	/** The game board, kept across moves: each move writes only the cells that changed into it */
+	private final Map maze = new Map(1, 1, 0);
+	
+	/** Distances from Pacman, repaired incrementally as Pacman moves one cell per tick */
+	private final DynamicDistanceField distances = new DynamicDistanceField();
 
 	// ==================== CONSTRUCTOR ====================
 	
-	public Ex3Algo() {}
+	public Ex3Algo() {
+		maze.setCyclic(GameInfo.CYCLIC_MODE);
+	}
 	
 	@Override
 	public String getInfo() {
@@ -68,13 +121,23 @@ public class Ex3Algo implements server.PacManAlgo {
 		Pixel2D pacmanPos = parsePosition(game.getPos(0));
 		GhostCL[] ghosts = game.getGhosts(0);
 		
-		// Create map for pathfinding
-		Map map = createMap(board);
+		// Bring the map for pathfinding up to date (the fingerprints follow the changed cells)
+		Map map = maze;
+		map.copyColumns(board);
 		boardWidth = map.getWidth();
 		boardHeight = map.getHeight();
 		
-		// Precompute distances from Pacman to all cells
-		Map2D distances = map.allDistance(pacmanPos, OBSTACLE_COLOR);
+		// Analyze the maze once per set of walls (and build the distance table only if it stays small)
+		long fingerprint = map.passabilityFingerprint(OBSTACLE_COLOR);
+		if (structure == null || fingerprint != mazeFingerprint) {
+			mazeFingerprint = fingerprint;
+			oracle = countWalkable(map) <= ORACLE_MAX_WALKABLE ? new DistanceOracle(map, OBSTACLE_COLOR) : null;
+			structure = new MazeStructure(map, OBSTACLE_COLOR);
+			distances.invalidate();
+		}
+		
+		// Update distances from Pacman to all cells
+		distances.update(map, pacmanPos, OBSTACLE_COLOR);
 
 		// Determine and execute state
 		State state = determineState(distances, ghosts, map);
@@ -87,7 +150,7 @@ public class Ex3Algo implements server.PacManAlgo {
 	 * Determines the current FSM state based on game situation.
 	 * Priority: ESCAPE > CHASE > GET_POWER_PELLET > EAT_DOTS
 	 */
-	private State determineState(Map2D distances, GhostCL[] ghosts, Map map) {
+	private State determineState(DynamicDistanceField distances, GhostCL[] ghosts, Map map) {
 		if (shouldEscape(distances, ghosts)) {
 			return State.ESCAPE;
 		}
@@ -101,21 +164,21 @@ public class Ex3Algo implements server.PacManAlgo {
 	}
 	
 	/** Routes to appropriate state handler */
-	private int executeState(State state, Map2D distances, Pixel2D pos, GhostCL[] ghosts, Map map) {
+	private int executeState(State state, DynamicDistanceField distances, Pixel2D pos, GhostCL[] ghosts, Map map) {
 		return switch (state) {
 			case ESCAPE -> doEscape(pos, ghosts, map);
 			case CHASE -> doChase(distances, pos, ghosts, map);
-			case GET_POWER_PELLET -> doGetPowerPellet(distances, pos, map);
-			case EAT_DOTS -> doEatDots(distances, pos, ghosts, map);
+			case GET_POWER_PELLET -> doGetPowerPellet(pos, map);
+			case EAT_DOTS -> doEatDots(pos, ghosts, map);
 		};
 	}
 
 	// ==================== STATE CONDITIONS ====================
 	
 	/** Returns true if any non-vulnerable ghost is within danger threshold */
-	private boolean shouldEscape(Map2D distances, GhostCL[] ghosts) {
+	private boolean shouldEscape(DynamicDistanceField distances, GhostCL[] ghosts) {
 		for (GhostCL ghost : ghosts) {
-			if (!isVulnerable(ghost) && distances.getPixel(getPosition(ghost)) <= DANGER_THRESHOLD) {
+			if (!isVulnerable(ghost) && distances.distance(getPosition(ghost)) <= DANGER_THRESHOLD) {
 				return true;
 			}
 		}
@@ -123,11 +186,11 @@ public class Ex3Algo implements server.PacManAlgo {
 	}
 	
 	/** Returns true if a vulnerable ghost is close enough to chase (and outside spawn) */
-	private boolean shouldChase(Map2D distances, GhostCL[] ghosts) {
+	private boolean shouldChase(DynamicDistanceField distances, GhostCL[] ghosts) {
 		for (GhostCL ghost : ghosts) {
 			if (isVulnerable(ghost)) {
 				Pixel2D pos = getPosition(ghost);
-				if (distances.getPixel(pos) <= CHASE_THRESHOLD && isOutsideSpawn(pos)) {
+				if (distances.distance(pos) <= CHASE_THRESHOLD && isOutsideSpawn(pos)) {
 					return true;
 				}
 			}
@@ -136,7 +199,7 @@ public class Ex3Algo implements server.PacManAlgo {
 	}
 	
 	/** Returns true if we should proactively get a power pellet */
-	private boolean shouldGetPowerPellet(Map2D distances, GhostCL[] ghosts, Map map) {
+	private boolean shouldGetPowerPellet(DynamicDistanceField distances, GhostCL[] ghosts, Map map) {
 		// Don't get power pellet if ghosts are already vulnerable
 		if (hasVulnerableGhost(ghosts)) return false;
 		
@@ -147,7 +210,7 @@ public class Ex3Algo implements server.PacManAlgo {
 		for (GhostCL ghost : ghosts) {
 			if (!isVulnerable(ghost)) {
 				Pixel2D pos = getPosition(ghost);
-				int dist = distances.getPixel(pos);
+				int dist = distances.distance(pos);
 				if (dist > DANGER_THRESHOLD && dist <= DANGER_THRESHOLD + POWER_PELLET_RANGE && isOutsideSpawn(pos)) {
 					return true;
 				}
@@ -160,7 +223,7 @@ public class Ex3Algo implements server.PacManAlgo {
 	
 	/**
 	 * ESCAPE: Move to the safest neighbor (maximizes distance from ghosts).
-	 * Avoids dead-ends where only exit is back to current position.
+	 * Avoids neighbors that lead deeper into a dead-end pocket.
 	 * Tie-breaker: if power pellet exists, prefer closer to it; otherwise closer to dot.
 	 */
 	private int doEscape(Pixel2D pacmanPos, GhostCL[] ghosts, Map map) {
@@ -173,8 +236,15 @@ public class Ex3Algo implements server.PacManAlgo {
 
 		// Determine what to prioritize as tie-breaker
 		boolean powerPelletExists = hasPowerPellet(map);
-		int tieBreakColor = powerPelletExists ? POWER_PELLET_COLOR : DOT_COLOR;
-
+		
+		// One labeled multi-source BFS from the tie-breaker targets serves every neighbor
+		tieBreakTargets.run(map, powerPelletExists ? IS_POWER_PELLET : IS_DOT, OBSTACLE_COLOR);
+		
+		// Without an oracle, every neighbor searches only as far as its closest ghost
+		if (oracle == null) {
+			setGhostCells(dangerousGhosts, map);
+		}
+		
 		// Find neighbor that maximizes minimum distance to ghosts
 		Pixel2D best = null;
 		int bestMinDist = -1;
@@ -182,7 +252,7 @@ public class Ex3Algo implements server.PacManAlgo {
 		
 		for (Pixel2D neighbor : safeNeighbors) {
 			int minGhostDist = getMinDistanceToGhosts(neighbor, dangerousGhosts, map);
-			int tieBreakDist = getDistanceToClosest(neighbor, tieBreakColor, map);
+			int tieBreakDist = distanceToOtherTarget(neighbor);
 			
 			// Better if: farther from ghosts, or same distance but closer to tie-breaker target
 			if (minGhostDist > bestMinDist || (minGhostDist == bestMinDist && tieBreakDist < bestTieBreakDist)) {
@@ -198,14 +268,14 @@ public class Ex3Algo implements server.PacManAlgo {
 	/**
 	 * CHASE: Move towards the closest vulnerable ghost (outside spawn area).
 	 */
-	private int doChase(Map2D distances, Pixel2D pacmanPos, GhostCL[] ghosts, Map map) {
+	private int doChase(DynamicDistanceField distances, Pixel2D pacmanPos, GhostCL[] ghosts, Map map) {
 		Pixel2D target = null;
 		int bestDist = Integer.MAX_VALUE;
 		
 		for (GhostCL ghost : ghosts) {
 			if (isVulnerable(ghost)) {
 				Pixel2D pos = getPosition(ghost);
-				int dist = distances.getPixel(pos);
+				int dist = distances.distance(pos);
 				if (dist <= CHASE_THRESHOLD && dist < bestDist && isOutsideSpawn(pos)) {
 					bestDist = dist;
 					target = pos;
@@ -219,8 +289,8 @@ public class Ex3Algo implements server.PacManAlgo {
 	/**
 	 * GET_POWER_PELLET: Move towards the closest power pellet.
 	 */
-	private int doGetPowerPellet(Map2D distances, Pixel2D pacmanPos, Map map) {
-		Pixel2D target = findClosest(distances, POWER_PELLET_COLOR, map);
+	private int doGetPowerPellet(Pixel2D pacmanPos, Map map) {
+		Pixel2D target = findClosest(pacmanPos, POWER_PELLET_COLOR, map);
 		return moveTowards(pacmanPos, target, map);
 	}
 	
@@ -228,20 +298,25 @@ public class Ex3Algo implements server.PacManAlgo {
 	 * EAT_DOTS: Move towards the closest dot.
 	 * If ghosts are vulnerable, avoid stepping on power pellets - try alternative paths first.
 	 */
-	private int doEatDots(Map2D distances, Pixel2D pacmanPos, GhostCL[] ghosts, Map map) {
+	private int doEatDots(Pixel2D pacmanPos, GhostCL[] ghosts, Map map) {
 		boolean avoidPowerPellets = hasVulnerableGhost(ghosts);
-		Pixel2D target = findClosest(distances, DOT_COLOR, map);
+		Pixel2D target = findClosest(pacmanPos, DOT_COLOR, map);
 		
 		if (target == null) return Game.UP;
 		
+		if (!avoidPowerPellets) {
+			// Only the first step of the path matters
+			Pixel2D nextStep = map.firstStep(pacmanPos, target, OBSTACLE_COLOR, search);
+			return nextStep == null ? Game.UP : getDirection(pacmanPos, nextStep, map.isCyclic());
+		}
+		
 		// Get path towards target
-		Pixel2D[] path = map.shortestPath(pacmanPos, target, OBSTACLE_COLOR);
-		if (path == null || path.length < 2) return Game.UP;
+		if (!map.shortestPath(pacmanPos, target, OBSTACLE_COLOR, search, path) || path.length() < 2) return Game.UP;
 		
-		Pixel2D nextStep = path[1];
+		Pixel2D nextStep = path.getPixel(1);
 		
-		// If ghosts are vulnerable and path goes through power pellet, try to find alternative
-		if (avoidPowerPellets && pathContainsPowerPellet(path, map)) {
+		// Ghosts are vulnerable: if the path goes through a power pellet, try to find alternative
+		if (pathContainsPowerPellet(path, map)) {
 			// Try to find alternative neighbor that leads to same dot without power pellet
 			Pixel2D alternative = findAlternativePathToDot(pacmanPos, target, map);
 			if (alternative != null) {
@@ -254,9 +329,9 @@ public class Ex3Algo implements server.PacManAlgo {
 	}
 	
 	/** Checks if path contains any power pellet */
-	private boolean pathContainsPowerPellet(Pixel2D[] path, Map map) {
-		for (int i = 1; i < path.length; i++) {
-			if (map.getPixel(path[i]) == POWER_PELLET_COLOR) {
+	private boolean pathContainsPowerPellet(IntPath path, Map map) {
+		for (int i = 1; i < path.length(); i++) {
+			if (map.getPixel(path.getX(i), path.getY(i)) == POWER_PELLET_COLOR) {
 				return true;
 			}
 		}
@@ -265,28 +340,16 @@ public class Ex3Algo implements server.PacManAlgo {
 	
 	/** Finds alternative neighbor that leads to dot without going through power pellet */
 	private Pixel2D findAlternativePathToDot(Pixel2D from, Pixel2D target, Map map) {
+		// One search from the dot through cells that are neither walls nor power pellets
+		search.run(map, target, v -> v != OBSTACLE_COLOR && v != POWER_PELLET_COLOR);
+		
 		Pixel2D best = null;
 		int bestDist = Integer.MAX_VALUE;
-		
 		for (Pixel2D neighbor : getValidNeighbors(from, map)) {
-			// Skip if neighbor itself is a power pellet
-			if (map.getPixel(neighbor) == POWER_PELLET_COLOR) continue;
-			
-			// Check path from this neighbor to target
-			Pixel2D[] altPath = map.shortestPath(neighbor, target, OBSTACLE_COLOR);
-			if (altPath == null) continue;
-			
-			// Check if this alternative path avoids power pellets
-			boolean hasPowerPellet = false;
-			for (int i = 0; i < altPath.length; i++) {
-				if (map.getPixel(altPath[i]) == POWER_PELLET_COLOR) {
-					hasPowerPellet = true;
-					break;
-				}
-			}
-			
-			if (!hasPowerPellet && altPath.length < bestDist) {
-				bestDist = altPath.length;
+			// Power pellets and neighbors without a pellet-free path are never reached
+			int dist = search.distance(neighbor);
+			if (dist >= 0 && dist < bestDist) {
+				bestDist = dist;
 				best = neighbor;
 			}
 		}
@@ -296,30 +359,50 @@ public class Ex3Algo implements server.PacManAlgo {
 	// ==================== HELPER METHODS ====================
 	
 	
-	/** Filters out dead-end neighbors (where only exit is back to current position) */
+	/** Filters out neighbors that lead deeper into a dead-end pocket (of any length) */
 	private List<Pixel2D> filterDeadEnds(List<Pixel2D> neighbors, Pixel2D current, Map map) {
-		List<Pixel2D> result = new ArrayList<>();
+		List<Pixel2D> result = new ArrayList<>(neighbors.size());
 		for (Pixel2D neighbor : neighbors) {
-			List<Pixel2D> exits = getValidNeighbors(neighbor, map);
-			// Not a dead-end if more than one exit, or the single exit isn't back to current
-			if (exits.size() > 1 || (exits.size() == 1 && !exits.get(0).equals(current))) {
+			if (!structure.leadsDeeper(current, neighbor)) {
 				result.add(neighbor);
 			}
 		}
 		return result;
 	}
 	
-	/** Gets minimum distance from a position to any ghost in the list */
+	/**
+	 * Gets the distance from a position to the closest ghost in the list it can reach
+	 * (ghosts it cannot reach are no danger; MAX_VALUE if it reaches none)
+	 */
 	private int getMinDistanceToGhosts(Pixel2D pos, List<Pixel2D> ghosts, Map map) {
-		Map2D distances = map.allDistance(pos, OBSTACLE_COLOR);
+		if (oracle == null) {
+			closestGhost = -1;
+			if (ghostCount > 0) {
+				search.traverse(map, pos, OBSTACLE_COLOR, Integer.MAX_VALUE, ghostFinder);
+			}
+			return closestGhost < 0 ? Integer.MAX_VALUE : closestGhost;
+		}
 		int minDist = Integer.MAX_VALUE;
 		for (Pixel2D ghost : ghosts) {
-			int dist = distances.getPixel(ghost);
-			if (dist < minDist) minDist = dist;
+			int dist = oracle.distance(pos, ghost);
+			if (dist >= 0 && dist < minDist) minDist = dist;
 		}
 		return minDist;
 	}
 	
+	/** Records the cells of the given ghosts for ghostFinder */
+	private void setGhostCells(List<Pixel2D> ghosts, Map map) {
+		if (ghostCells.length < ghosts.size()) {
+			ghostCells = new int[ghosts.size()];
+		}
+		ghostCount = 0;
+		for (Pixel2D ghost : ghosts) {
+			if (map.isInside(ghost)) {
+				ghostCells[ghostCount++] = map.indexOf(ghost.getX(), ghost.getY());
+			}
+		}
+	}
+	
 	/** Gets positions of all non-vulnerable ghosts */
 	private List<Pixel2D> getNonVulnerableGhostPositions(GhostCL[] ghosts) {
 		List<Pixel2D> result = new ArrayList<>();
@@ -331,47 +414,32 @@ public class Ex3Algo implements server.PacManAlgo {
 		return result;
 	}
 	
-	/** Finds closest cell of given color using precomputed distances */
-	private Pixel2D findClosest(Map2D distances, int color, Map map) {
-		Pixel2D closest = null;
-		int minDist = Integer.MAX_VALUE;
-		
-		for (int x = 0; x < map.getWidth(); x++) {
-			for (int y = 0; y < map.getHeight(); y++) {
-				if (map.getPixel(x, y) == color) {
-					int dist = distances.getPixel(x, y);
-					if (dist > 0 && dist < minDist) {
-						minDist = dist;
-						closest = new Index2D(x, y);
-					}
-				}
+	/** Finds closest cell of given color (other than pos itself), searching only as far as needed */
+	private Pixel2D findClosest(Pixel2D pos, int color, Map map) {
+		for (Pixel2D p : map.nearest(pos, color, 2, OBSTACLE_COLOR, null, search)) {
+			if (!p.equals(pos)) {
+				return p;
 			}
 		}
-		return closest;
+		return null;
 	}
 	
-	/** Gets distance to closest cell of given color from a position */
-	private int getDistanceToClosest(Pixel2D pos, int color, Map map) {
-		Map2D distances = map.allDistance(pos, OBSTACLE_COLOR);
-		int minDist = Integer.MAX_VALUE;
-		
-		for (int x = 0; x < map.getWidth(); x++) {
-			for (int y = 0; y < map.getHeight(); y++) {
-				if (map.getPixel(x, y) == color) {
-					int dist = distances.getPixel(x, y);
-					if (dist > 0 && dist < minDist) minDist = dist;
-				}
-			}
-		}
-		return minDist;
+	/**
+	 * Distance from pos to the closest tie-breaker target other than pos itself (MAX_VALUE if none is reachable).
+	 * A target's own cell is its first arrival, so the closest other target is the second one.
+	 */
+	private int distanceToOtherTarget(Pixel2D pos) {
+		int arrival = tieBreakTargets.arrival(pos);
+		if (arrival > 0) return arrival;
+		return arrival == 0 ? tieBreakTargets.margin(pos) : Integer.MAX_VALUE;
 	}
 	
 	/** Returns first step direction towards target */
 	private int moveTowards(Pixel2D from, Pixel2D to, Map map) {
 		if (to == null) return Game.UP;
-		Pixel2D[] path = map.shortestPath(from, to, OBSTACLE_COLOR);
-		if (path == null || path.length < 2) return Game.UP;
-		return getDirection(from, path[1], map.isCyclic());
+		Pixel2D next = oracle != null ? oracle.nextStep(from, to) : map.firstStep(from, to, OBSTACLE_COLOR, search);
+		if (next == null) return Game.UP;
+		return getDirection(from, next, map.isCyclic());
 	}
 
 	// ==================== GHOST UTILITIES ====================
@@ -408,21 +476,13 @@ public class Ex3Algo implements server.PacManAlgo {
 		return false;
 	}
 	
-	/** Creates Map from game board (handles coordinate transposition) */
-	private Map createMap(int[][] board) {
-		int width = board.length;
-		int height = board[0].length;
-		int[][] transposed = new int[height][width];
-		
-		for (int x = 0; x < width; x++) {
-			for (int y = 0; y < height; y++) {
-				transposed[y][x] = board[x][y];
-			}
+	/** Counts the non-obstacle cells */
+	private int countWalkable(Map map) {
+		int count = 0;
+		for (int cell = 0; cell < map.size(); cell++) {
+			if (map.valueAt(cell) != OBSTACLE_COLOR) count++;
 		}
-		
-		Map map = new Map(transposed);
-		map.setCyclic(GameInfo.CYCLIC_MODE);
-		return map;
+		return count;
 	}
 	
 	/** Gets all walkable neighbors of a position */
@@ -444,7 +504,7 @@ public class Ex3Algo implements server.PacManAlgo {
 			
 			int cell = map.getPixel(x, y);
 			if (cell != -1 && cell != OBSTACLE_COLOR) {
-				result.add(new Index2D(x, y));
+				result.add(PackedPixel.of(x, y));
 			}
 		}
 		return result;
@@ -475,11 +535,11 @@ public class Ex3Algo implements server.PacManAlgo {
 		String[] parts = posStr.split(",");
 		if (parts.length == 2) {
 			try {
-				return new Index2D(Integer.parseInt(parts[0].trim()), Integer.parseInt(parts[1].trim()));
+				return PackedPixel.of(Integer.parseInt(parts[0].trim()), Integer.parseInt(parts[1].trim()));
 			} catch (NumberFormatException e) {
-				return new Index2D(0, 0);
+				return PackedPixel.of(0, 0);
 			}
 		}
-		return new Index2D(0, 0);
+		return PackedPixel.of(0, 0);
 	}
 }
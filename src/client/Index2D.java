@@ -14,9 +14,9 @@ public class Index2D implements Pixel2D {
         return _y;
     }
     public double distance2D(Pixel2D t) {
-        double xDiff = Math.pow(this._x - t.getX(), 2);
-        double yDiff = Math.pow(this._y - t.getY(), 2);
-        return Math.sqrt(xDiff+yDiff);
+        double xDiff = this._x - t.getX();
+        double yDiff = this._y - t.getY();
+        return Math.sqrt(xDiff*xDiff+yDiff*yDiff);
     }
     @Override
     public String toString() {
@@ -28,9 +28,16 @@ public class Index2D implements Pixel2D {
        /////// you do NOT need to add your code below ///////
         if(t instanceof Pixel2D) {
             Pixel2D p = (Pixel2D) t;
-            ans = (this.distance2D(p)==0);
+            ans = (this._x==p.getX() && this._y==p.getY());
         }
        ///////////////////////////////////
         return ans;
     }
+    /**
+     * Equal pixels (of any Pixel2D class that follows this formula, e.g. PackedPixel) have equal hash codes.
+     */
+    @Override
+    public int hashCode() {
+        return 31*_x+_y;
+    }
 }
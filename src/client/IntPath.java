@@ -0,0 +1,73 @@
+package client;
+
+/**
+ * A reusable path result: the cells of a path as indices into the row-major cell array of the
+ * map that filled it (cell = y*width + x), kept in a primitive int array with a length.
+ * Filling a path allocates nothing once the array is large enough, and pixels are only created
+ * for the steps a caller actually reads (e.g. {@link #getPixel(int)} of step 1).
+ */
+public class IntPath {
+	private int[] _cells = new int[0];
+	private int _length = 0;
+	/** The map whose cell indices this path holds. */
+	private Map _map;
+
+	public IntPath() {}
+
+	/** @return the number of cells on the path (0 if there is no path), including both ends. */
+	public int length() {return _length;}
+
+	/** @return true iff the path holds no cells. */
+	public boolean isEmpty() {return _length == 0;}
+
+	/** Removes all the cells of the path. */
+	public void clear() {_length = 0;}
+
+	/**
+	 * @param i the position on the path (0 is the start).
+	 * @return the cell index (y*width + x) of the i-th cell of the path.
+	 */
+	public int cell(int i) {
+		if (i < 0 || i >= _length) {
+			throw new IndexOutOfBoundsException("Path index " + i + " out of " + _length);
+		}
+		return _cells[i];
+	}
+
+	/** @return the x coordinate of the i-th cell of the path. */
+	public int getX(int i) {return _map.xOf(cell(i));}
+
+	/** @return the y coordinate of the i-th cell of the path. */
+	public int getY(int i) {return _map.yOf(cell(i));}
+
+	/** @return the i-th cell of the path as a pixel. */
+	public Pixel2D getPixel(int i) {
+		int c = cell(i);
+		return PackedPixel.of(_map.xOf(c), _map.yOf(c));
+	}
+
+	/** @return the path as an array of consecutive pixels, null if the path is empty. */
+	public Pixel2D[] toArray() {
+		if (_length == 0) {
+			return null;
+		}
+		Pixel2D[] path = new Pixel2D[_length];
+		for (int i = 0; i < _length; i++) {
+			path[i] = PackedPixel.of(_map.xOf(_cells[i]), _map.yOf(_cells[i]));
+		}
+		return path;
+	}
+
+	/**
+	 * Prepares the path for length cells of the given map.
+	 * @return the array to write the cells to (positions 0..length-1).
+	 */
+	int[] reset(Map map, int length) {
+		if (_cells.length < length) {
+			_cells = new int[Math.max(length, _cells.length * 2)];
+		}
+		_map = map;
+		_length = length;
+		return _cells;
+	}
+}
@@ -0,0 +1,423 @@
+package client;
+
+import java.util.Arrays;
+
+/**
+ * A maze contracted to a weighted graph of its junctions and dead ends.
+ * The nodes are the walkable cells that do not have exactly two walkable neighbors (junctions and
+ * dead ends), and every corridor of degree-2 cells between two nodes becomes one edge whose weight
+ * is the corridor length. Wrap-around corridors of a cyclic map are ordinary edges, and a closed
+ * loop with no junction at all gets one of its cells as a node.
+ *
+ * Every corridor cell knows its (edge, offset) position, where the offset is its distance from the
+ * first end of the edge, so distances and paths between any two cells are answered by a Dijkstra
+ * search on the contracted graph, which for corridor mazes is much smaller than the grid.
+ * Dots and other non-wall values do not affect the contraction. Every query reuses the graph's
+ * Dijkstra arrays and heap, so queries must come from one thread at a time.
+ */
+public class JunctionGraph {
+	/** The maze as it was contracted: tracing a corridor and decoding a path walk its neighbors. */
+	private final Map _grid;
+	private final int _obsColor;
+	/** _node[cell] is the node of a junction / dead end cell, -1 otherwise. */
+	private final int[] _node;
+	/** _edge[cell] is the edge of a corridor cell, -1 otherwise; _offset[cell] its distance from the edge's first end. */
+	private final int[] _edge;
+	private final int[] _offset;
+
+	private int[] _nodeCell = new int[16];
+	private int _nodeCount = 0;
+	/** Edge e joins node _edgeFrom[e] to node _edgeTo[e] through _edgeLength[e]-1 corridor cells. */
+	private int[] _edgeFrom = new int[16];
+	private int[] _edgeTo = new int[16];
+	private int[] _edgeLength = new int[16];
+	/** The corridor cells of edge e, in order from its first end, start at _corridor[_edgeCells[e]]. */
+	private int[] _edgeCells = new int[16];
+	private int _edgeCount = 0;
+	private int[] _corridor = new int[16];
+	private int _corridorSize = 0;
+	/** The edges incident to node i are _adjEdge[_adjStart[i] .. _adjStart[i+1]) (self loops excluded). */
+	private int[] _adjStart;
+	private int[] _adjEdge;
+
+	/** Dijkstra state over the nodes. */
+	private int[] _dist, _predEdge, _seedEnd;
+	private EpochMarks _marks;
+	private final MinHeap _heap = new MinHeap();
+	/** Result of the last search: its length, the last node on it (-1 if it stays on one edge) and the end of b's edge it used. */
+	private int _bestLength, _bestNode, _bestEnd;
+
+	/**
+	 * Contracts the given maze.
+	 * @param map the maze to contract.
+	 * @param obsColor the color representing obstacles.
+	 */
+	public JunctionGraph(Map2D map, int obsColor) {
+		_grid = new Map(map.getMap());
+		_grid.setCyclic(map.isCyclic());
+		_obsColor = obsColor;
+		int n = _grid.size();
+		_node = new int[n];
+		_edge = new int[n];
+		_offset = new int[n];
+		Arrays.fill(_node, -1);
+		Arrays.fill(_edge, -1);
+		Arrays.fill(_offset, -1);
+
+		int[] buffer = new int[Map.DIRECTIONS];
+		for (int cell = 0; cell < n; cell++) {
+			if (walkable(cell) && walkableNeighbors(cell, buffer) != 2) {
+				addNode(cell);
+			}
+		}
+		for (int i = 0; i < _nodeCount; i++) {
+			traceEdges(i);
+		}
+		// Closed loops without junctions are still uncovered: promote one cell of each to a node
+		for (int cell = 0; cell < n; cell++) {
+			if (walkable(cell) && _node[cell] < 0 && _edge[cell] < 0) {
+				traceEdges(addNode(cell));
+			}
+		}
+		buildAdjacency();
+
+		_dist = new int[_nodeCount];
+		_marks = new EpochMarks(_nodeCount);
+		_predEdge = new int[_nodeCount];
+		_seedEnd = new int[_nodeCount];
+	}
+
+	/** @return the number of nodes (junctions, dead ends and loop representatives). */
+	public int nodeCount() {return _nodeCount;}
+
+	/** @return the number of edges (corridors). */
+	public int edgeCount() {return _edgeCount;}
+
+	/** @return the node of p, -1 if p is not a node (a corridor cell, an obstacle or outside the map). */
+	public int nodeOf(Pixel2D p) {
+		return _grid.isInside(p) ? _node[cellOf(p)] : -1;
+	}
+
+	/** @return the edge p lies on, -1 if p is not a corridor cell. */
+	public int edgeOf(Pixel2D p) {
+		return _grid.isInside(p) ? _edge[cellOf(p)] : -1;
+	}
+
+	/** @return the distance of the corridor cell p from the first end of its edge, -1 if p is not a corridor cell. */
+	public int offsetOf(Pixel2D p) {
+		return _grid.isInside(p) ? _offset[cellOf(p)] : -1;
+	}
+
+	/** @return the length (weight) of edge e. */
+	public int edgeLength(int e) {return _edgeLength[e];}
+
+	/**
+	 * @param a the source coordinate.
+	 * @param b the target coordinate.
+	 * @return the shortest path distance (obstacle avoiding) from a to b,
+	 * -1 if either is outside the map or an obstacle, or if b is not reachable from a.
+	 */
+	public int distance(Pixel2D a, Pixel2D b) {
+		if (!_grid.isInside(a) || !_grid.isInside(b)) {
+			return -1;
+		}
+		return search(cellOf(a), cellOf(b));
+	}
+
+	/**
+	 * Compute a shortest valid path between a and b (see {@link Map2D#shortestPath(Pixel2D, Pixel2D, int)}).
+	 * @param a first coordinate (start point).
+	 * @param b second coordinate (end point).
+	 * @return the shortest path as an array of consecutive pixels, if none - returns null.
+	 */
+	public Pixel2D[] shortestPath(Pixel2D a, Pixel2D b) {
+		if (!_grid.isInside(a) || !_grid.isInside(b)) {
+			return null;
+		}
+		int from = cellOf(a), to = cellOf(b);
+		int length = search(from, to);
+		if (length < 0) {
+			return null;
+		}
+		int[] cells = new int[length + 1];
+		int size = 0;
+		if (_bestNode < 0) {
+			// a and b are the same cell or on the same corridor
+			size = appendOffsets(cells, size, _edge[from], offsetOrZero(from), offsetOrZero(to));
+			if (size == 0) {
+				cells[size++] = from;
+			}
+		}
+		else {
+			// The chain of edges from the seed node to _bestNode, collected backwards
+			int chainLength = 0;
+			int[] chain = new int[_nodeCount];
+			int x = _bestNode;
+			while (_predEdge[x] >= 0) {
+				int e = _predEdge[x];
+				chain[chainLength++] = e;
+				x = otherEnd(e, x);
+			}
+			// From a to the seed node x
+			if (_node[from] >= 0) {
+				cells[size++] = from;
+			}
+			else {
+				int e = _edge[from];
+				size = appendOffsets(cells, size, e, _offset[from], _seedEnd[x] == 0 ? 0 : _edgeLength[e]);
+			}
+			// Along the chain, each edge without its starting node
+			for (int i = chainLength - 1; i >= 0; i--) {
+				int e = chain[i];
+				if (_edgeFrom[e] == x) {
+					size = appendOffsets(cells, size, e, 1, _edgeLength[e]);
+				}
+				else {
+					size = appendOffsets(cells, size, e, _edgeLength[e] - 1, 0);
+				}
+				x = otherEnd(e, x);
+			}
+			// From _bestNode to b
+			if (_node[to] < 0) {
+				int e = _edge[to];
+				if (_bestEnd == 0) {
+					size = appendOffsets(cells, size, e, 1, _offset[to]);
+				}
+				else {
+					size = appendOffsets(cells, size, e, _edgeLength[e] - 1, _offset[to]);
+				}
+			}
+		}
+		Pixel2D[] path = new Pixel2D[size];
+		for (int i = 0; i < size; i++) {
+			path[i] = PackedPixel.of(_grid.xOf(cells[i]), _grid.yOf(cells[i]));
+		}
+		return path;
+	}
+
+	////////////////////// Private Methods ///////////////////////
+
+	private boolean walkable(int cell) {return _grid.valueAt(cell) != _obsColor;}
+
+	private int cellOf(Pixel2D p) {return _grid.indexOf(p.getX(), p.getY());}
+
+	/**
+	 * Collects the distinct walkable neighbors of a cell (on tiny cyclic maps two directions may lead
+	 * to the same cell, or back to the cell itself).
+	 * @return the number of neighbors written to out.
+	 */
+	private int walkableNeighbors(int cell, int[] out) {
+		int count = 0;
+		for (int d = 0; d < Map.DIRECTIONS; d++) {
+			int n = _grid.neighbor(cell, d);
+			if (n < 0 || n == cell || !walkable(n)) {
+				continue;
+			}
+			boolean seen = false;
+			for (int i = 0; i < count; i++) {
+				seen |= out[i] == n;
+			}
+			if (!seen) {
+				out[count++] = n;
+			}
+		}
+		return count;
+	}
+
+	private int addNode(int cell) {
+		if (_nodeCount == _nodeCell.length) {
+			_nodeCell = Arrays.copyOf(_nodeCell, _nodeCount * 2);
+		}
+		_node[cell] = _nodeCount;
+		_nodeCell[_nodeCount] = cell;
+		return _nodeCount++;
+	}
+
+	/**
+	 * Walks every corridor leaving node u and records it as an edge, unless it is found again
+	 * from its other end: an edge is recorded from its smaller node, and a loop back to u
+	 * in the direction that starts with the smaller corridor cell.
+	 */
+	private void traceEdges(int u) {
+		int start = _nodeCell[u];
+		int[] exits = new int[Map.DIRECTIONS];
+		int[] buffer = new int[Map.DIRECTIONS];
+		int exitCount = walkableNeighbors(start, exits);
+		for (int i = 0; i < exitCount; i++) {
+			int first = _corridorSize;
+			int prev = start, cur = exits[i];
+			int length = 1;
+			while (_node[cur] < 0) {
+				appendCorridor(cur);
+				walkableNeighbors(cur, buffer);
+				int next = buffer[0] == prev ? buffer[1] : buffer[0];
+				prev = cur;
+				cur = next;
+				length++;
+			}
+			int v = _node[cur];
+			boolean record = u < v || (u == v && _corridor[first] < _corridor[_corridorSize - 1]);
+			if (!record) {
+				// Roll back the corridor cells of an edge that is (or will be) recorded from its other end
+				_corridorSize = first;
+				continue;
+			}
+			if (_edgeCount == _edgeFrom.length) {
+				int size = _edgeCount * 2;
+				_edgeFrom = Arrays.copyOf(_edgeFrom, size);
+				_edgeTo = Arrays.copyOf(_edgeTo, size);
+				_edgeLength = Arrays.copyOf(_edgeLength, size);
+				_edgeCells = Arrays.copyOf(_edgeCells, size);
+			}
+			int e = _edgeCount++;
+			_edgeFrom[e] = u;
+			_edgeTo[e] = v;
+			_edgeLength[e] = length;
+			_edgeCells[e] = first;
+			for (int k = first; k < _corridorSize; k++) {
+				_edge[_corridor[k]] = e;
+				_offset[_corridor[k]] = k - first + 1;
+			}
+		}
+	}
+
+	private void appendCorridor(int cell) {
+		if (_corridorSize == _corridor.length) {
+			_corridor = Arrays.copyOf(_corridor, _corridorSize * 2);
+		}
+		_corridor[_corridorSize++] = cell;
+	}
+
+	/** Builds the incident-edge lists of the nodes (compressed, one array for all nodes). */
+	private void buildAdjacency() {
+		_adjStart = new int[_nodeCount + 1];
+		for (int e = 0; e < _edgeCount; e++) {
+			if (_edgeFrom[e] != _edgeTo[e]) {
+				_adjStart[_edgeFrom[e] + 1]++;
+				_adjStart[_edgeTo[e] + 1]++;
+			}
+		}
+		for (int i = 0; i < _nodeCount; i++) {
+			_adjStart[i + 1] += _adjStart[i];
+		}
+		_adjEdge = new int[_adjStart[_nodeCount]];
+		int[] fill = Arrays.copyOf(_adjStart, _nodeCount);
+		for (int e = 0; e < _edgeCount; e++) {
+			if (_edgeFrom[e] != _edgeTo[e]) {
+				_adjEdge[fill[_edgeFrom[e]]++] = e;
+				_adjEdge[fill[_edgeTo[e]]++] = e;
+			}
+		}
+	}
+
+	private int otherEnd(int e, int node) {
+		return _edgeFrom[e] == node ? _edgeTo[e] : _edgeFrom[e];
+	}
+
+	/** @return the cell at the given offset of edge e (offset 0 and the edge length are its end nodes). */
+	private int cellAt(int e, int offset) {
+		if (offset == 0) {
+			return _nodeCell[_edgeFrom[e]];
+		}
+		if (offset == _edgeLength[e]) {
+			return _nodeCell[_edgeTo[e]];
+		}
+		return _corridor[_edgeCells[e] + offset - 1];
+	}
+
+	/** Appends the cells of edge e at offsets from..to (inclusive, in that order). */
+	private int appendOffsets(int[] cells, int size, int e, int from, int to) {
+		if (e < 0) {
+			return size;
+		}
+		int step = from <= to ? 1 : -1;
+		for (int offset = from; offset != to + step; offset += step) {
+			cells[size++] = cellAt(e, offset);
+		}
+		return size;
+	}
+
+	private int offsetOrZero(int cell) {return Math.max(_offset[cell], 0);}
+
+	/** Relaxes a node at the start of a search, reached from a's cell through the given end of a's edge. */
+	private void seed(int node, int dist, int end) {
+		if (!_marks.isMarked(node) || dist < _dist[node]) {
+			_marks.mark(node);
+			_dist[node] = dist;
+			_predEdge[node] = -1;
+			_seedEnd[node] = end;
+			_heap.push(dist, node);
+		}
+	}
+
+	/**
+	 * Dijkstra search from cell a to cell b over the contracted graph.
+	 * @return the distance from a to b, -1 if none (the path is described by _bestNode, _bestEnd and _predEdge).
+	 */
+	private int search(int a, int b) {
+		if (!walkable(a) || !walkable(b)) {
+			return -1;
+		}
+		_bestNode = -1;
+		if (a == b) {
+			return 0;
+		}
+		_bestLength = Integer.MAX_VALUE;
+		int edgeA = _edge[a], edgeB = _edge[b];
+		if (edgeA >= 0 && edgeA == edgeB) {
+			// Straight along the shared corridor
+			_bestLength = Math.abs(_offset[a] - _offset[b]);
+		}
+		_marks.begin();
+		_heap.clear();
+		if (_node[a] >= 0) {
+			seed(_node[a], 0, -1);
+		}
+		else {
+			seed(_edgeFrom[edgeA], _offset[a], 0);
+			seed(_edgeTo[edgeA], _edgeLength[edgeA] - _offset[a], 1);
+		}
+
+		while (!_heap.isEmpty()) {
+			int d = (int) _heap.minKey();
+			int x = _heap.pop();
+			if (d != _dist[x]) {
+				// Stale entry
+				continue;
+			}
+			if (d >= _bestLength) {
+				break;
+			}
+			// Can b be reached from x?
+			if (_node[b] == x) {
+				_bestLength = d;
+				_bestNode = x;
+				break;
+			}
+			if (edgeB >= 0) {
+				if (_edgeFrom[edgeB] == x && d + _offset[b] < _bestLength) {
+					_bestLength = d + _offset[b];
+					_bestNode = x;
+					_bestEnd = 0;
+				}
+				if (_edgeTo[edgeB] == x && d + _edgeLength[edgeB] - _offset[b] < _bestLength) {
+					_bestLength = d + _edgeLength[edgeB] - _offset[b];
+					_bestNode = x;
+					_bestEnd = 1;
+				}
+			}
+			for (int i = _adjStart[x]; i < _adjStart[x + 1]; i++) {
+				int e = _adjEdge[i];
+				int y = otherEnd(e, x);
+				int nd = d + _edgeLength[e];
+				if (!_marks.isMarked(y) || nd < _dist[y]) {
+					_marks.mark(y);
+					_dist[y] = nd;
+					_predEdge[y] = e;
+					_heap.push(nd, y);
+				}
+			}
+		}
+		return _bestLength == Integer.MAX_VALUE ? -1 : _bestLength;
+	}
+}
@@ -1,18 +1,63 @@
 package client;
 
-import java.util.ArrayList;
-import java.util.LinkedList;
-import java.util.Queue;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.function.IntPredicate;
 
 /**
  * This class represents a 2D map as a "screen" or a raster matrix or maze over integers.
+ * The entries are kept in a single row-major int array (entry (x,y) is at index y*width+x),
+ * and the search algorithms walk over these cell indices directly, without allocating
+ * a Pixel2D per visited cell. A map may instead be a view over another layout (see
+ * {@link #ofColumns(int[][])}); the cell indices, and so all the algorithms, stay the same.
  * @author boaz.benmoshe
  *
  */
 public class Map implements Map2D {
-	private int[][] _map;
+	/** Direction codes used by {@link #neighbor(int, int)}, in the order neighbors are visited. */
+	static final int UP = 0, DOWN = 1, RIGHT = 2, LEFT = 3;
+	/** Number of neighbors a cell may have (up, down, right, left). */
+	static final int DIRECTIONS = 4;
+	/** Number of cells from which PathStrategy.AUTO searches from both ends. */
+	static final int BIDIRECTIONAL_THRESHOLD = 64 * 64;
+	/** Default number of cells from which allDistance uses the bit-parallel BFS. */
+	public static final int DEFAULT_BIT_PARALLEL_THRESHOLD = 256 * 256;
+	/** Default number of cells from which allDistance uses the multi-threaded BFS. */
+	public static final int DEFAULT_PARALLEL_THRESHOLD = 2048 * 2048;
+
+	/** The row-major cells, null if the cells are kept by _columns or _store. */
+	private int[] _map;
+	/** The x-major array viewed by a map made by ofColumns (cell y*width + x is _columns[x][y]), null otherwise. */
+	private int[][] _columns;
+	/** The storage of an off-heap map, null if the cells are kept by _map or _columns. */
+	private CellStore _store;
+	private int _w, _h;
+	/** rowOf(cell) = (cell * _rowMagic) >>> _rowShift divides a cell index by the width without a division. */
+	private long _rowMagic;
+	private int _rowShift;
 	private boolean _cyclicFlag = true;
-	
+	/** Index deltas from a cell to its up, down, right and left neighbors. */
+	private final int[] _step = new int[DIRECTIONS];
+	/** Index deltas used instead of _step when a move crosses the map border (cyclic mode only). */
+	private final int[] _wrap = new int[DIRECTIONS];
+	/** Search state reused by the algorithms that are not given a workspace by the caller. */
+	private BfsWorkspace _search;
+	private BidirectionalBfs _bidirectional;
+	private AStarSearch _aStar;
+	private BitBfs _bitBfs;
+	private int _bitParallelThreshold = DEFAULT_BIT_PARALLEL_THRESHOLD;
+	private ParallelBfs _parallelBfs;
+	private int _parallelThreshold = DEFAULT_PARALLEL_THRESHOLD;
+	private PathStrategy _pathStrategy = PathStrategy.AUTO;
+	/** The cache of distance fields told about every change of this map, if any. */
+	private DistanceFieldCache _distanceCache;
+	/**
+	 * Zobrist-style hashes of the cells of every color: _colorHash.get(v)[0] is the XOR of the keys of
+	 * the cells whose value is v. Built on the first fingerprint request and then kept up to date
+	 * by every change (null until then, so maps that are never fingerprinted pay nothing).
+	 */
+	private HashMap<Integer, long[]> _colorHash;
+
 	/**
 	 * Constructs a w*h 2D raster map with an init value v.
 	 * @param w
@@ -25,7 +70,7 @@ public class Map implements Map2D {
 	 * @param size
 	 */
 	public Map(int size) {this(size,size, 0);}
-	
+
 	/**
 	 * Constructs a map from a given 2D array.
 	 * @param data
@@ -34,97 +79,198 @@ public class Map implements Map2D {
 		init(data);
 	}
 
+	/** Constructs a w*h map over the given storage. */
+	Map(int w, int h, CellStore store) {
+		shape(w, h);
+		_store = store;
+	}
+
+	/**
+	 * Creates a w*h map with an init value v whose cells are kept one byte each in a direct (off-heap)
+	 * buffer, for huge maps: 1 byte per cell instead of 4, outside the Java heap. The bytes index a
+	 * palette of the values in use, so the map behaves like any other map as long as it holds at most
+	 * 256 distinct values: a write of a 257th value throws an IllegalArgumentException and leaves the
+	 * cell unchanged (an init from such data stops at that cell). The cells are never copied to the
+	 * heap, and a later init keeps them off-heap.
+	 * @throws IllegalArgumentException if w*h does not fit in a buffer.
+	 */
+	public static Map offHeap(int w, int h, int v) {
+		if (w <= 0 || h <= 0 || (long) w * h > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException("Bad off-heap map dimensions: " + w + "x" + h);
+		}
+		return new Map(w, h, new ByteStore(w * h, v));
+	}
+
+	/**
+	 * Creates a map viewing an x-major array (columns[x][y], the layout of the server's board) in place:
+	 * nothing is copied, reads and writes go to the array, and every algorithm of Map works on it.
+	 * A later init replaces the view with a map of its own.
+	 * @param columns the array, indexed as [x][y].
+	 * @return a map of width columns.length and height columns[0].length.
+	 */
+	public static Map ofColumns(int[][] columns) {
+		Map view = new Map(columns.length, columnHeight(columns), null);
+		view._columns = columns;
+		return view;
+	}
+
+	/**
+	 * Makes this map equal to an x-major array (columns[x][y], the layout of the server's board) by writing
+	 * only the cells that differ, so that a map kept across the ticks of a game gets one write per changed
+	 * cell and its fingerprints are updated incrementally instead of being recomputed. A map of other
+	 * dimensions is re-initialized first.
+	 * @param columns the array, indexed as [x][y].
+	 * @return the number of cells that changed.
+	 */
+	public int copyColumns(int[][] columns) {
+		int h = columnHeight(columns);
+		if (columns.length != _w || h != _h) {
+			init(columns.length, h, columns[0][0]);
+		}
+		int changed = 0;
+		int[] map = _map;
+		for (int x = 0; x < _w; x++) {
+			int[] column = columns[x];
+			for (int y = 0, cell = x; y < _h; y++, cell += _w) {
+				int v = column[y];
+				if ((map != null ? map[cell] : valueAt(cell)) != v) {
+					setValueAt(cell, v);
+					changed++;
+				}
+			}
+		}
+		return changed;
+	}
+
 	@Override
 	public void init(int w, int h, int v) {
-		// Create a new matrix with dimensions [height][width]
-		_map = new int[h][w];
-		// Iterate through all positions and set them to the initial value v
-		// Note: _map indexing is [y][x], so y (row) is the first index
-		for (int x = 0; x < w; x++){
-			for (int y = 0; y < h; y++){
-				_map[y][x] = v;
-			}
+		// Allocate the w*h entries, all set to the initial value v
+		allocate(w, h, v);
+		_colorHash = null;
+		if (_distanceCache != null) {
+			_distanceCache.clear();
 		}
 	}
 
 	@Override
 	public void init(int[][] arr) {
-		// Create a new matrix with the same dimensions as the input array
-		_map = new int[arr.length][arr[0].length];
-		// Copy all values from the input array to the internal matrix
-		for (int i = 0; i < arr.length; i++){
-			for (int j = 0; j < arr[0].length; j++){
-				_map[i][j] = arr[i][j];
+		if (arr == null || arr.length == 0 || arr[0] == null || arr[0].length == 0) {
+			throw new IllegalArgumentException("Map data must be a non-empty 2D array");
+		}
+		// arr is indexed as [y][x], so each row of arr becomes one row of the flat array
+		allocate(arr[0].length, arr.length, arr[0][0]);
+		for (int y = 0; y < _h; y++) {
+			if (arr[y] == null || arr[y].length != _w) {
+				throw new IllegalArgumentException("Map data must not be a ragged array (row " + y + ")");
+			}
+			if (_map != null) {
+				System.arraycopy(arr[y], 0, _map, y * _w, _w);
+			}
+			else {
+				for (int x = 0; x < _w; x++) {
+					store(y * _w + x, arr[y][x]);
+				}
 			}
 		}
+		_colorHash = null;
+		if (_distanceCache != null) {
+			_distanceCache.clear();
+		}
 	}
 
 	@Override
 	public int[][] getMap() {
-		// Create a new 2D array with the same dimensions
-		int[][] ans = new int[_map.length][_map[0].length];
-		// Copy all values from the internal _map to the result array
-		for (int i = 0; i < ans.length; i++){
-			for (int j = 0; j < ans[i].length; j++){
-				ans[i][j] = _map[i][j];
+		// Create a new 2D array with the same dimensions, indexed as [y][x]
+		int[][] ans = new int[_h][_w];
+		// Copy every row of the flat array into the result
+		for (int y = 0; y < _h; y++) {
+			if (_map != null) {
+				System.arraycopy(_map, y * _w, ans[y], 0, _w);
+			}
+			else {
+				for (int x = 0; x < _w; x++) {
+					ans[y][x] = valueAt(y * _w + x);
+				}
 			}
 		}
 		return ans;
 	}
 
 	@Override
-	public int getWidth() {return _map[0].length;}
+	public int getWidth() {return _w;}
 
 	@Override
-	public int getHeight() {return _map.length;}
+	public int getHeight() {return _h;}
 
 	@Override
 	public int getPixel(int x, int y) {
 		// Check if coordinates are out of bounds
 		// Returns -1 if x is greater than or equal to width, or y is greater than or equal to height
-		if (x < 0 || y < 0 || x >= getWidth() || y >= getHeight()) {
+		if (x < 0 || y < 0 || x >= _w || y >= _h) {
 			return -1;
 		}
-		// Return the pixel value (_map is indexed as [y][x])
-		return _map[y][x];
+		return valueAt(y * _w + x);
 	}
 
 	@Override
 	public int getPixel(Pixel2D p) {
-		if (p.getX() < 0 || p.getY() < 0 || p.getX() >= getWidth() || p.getY() >= getHeight()) {
-			return -1;
-		}
-		return _map[p.getY()][p.getX()];
+		return getPixel(p.getX(), p.getY());
 	}
 
 	@Override
 	public void setPixel(int x, int y, int v) {
-		if (x < 0 || y < 0 || x >= getWidth() || y >= getHeight()) {
+		if (x < 0 || y < 0 || x >= _w || y >= _h) {
 			return;
 		}
-		_map[y][x] = v;
+		setValueAt(y * _w + x, v);
 	}
 
 	@Override
 	public void setPixel(Pixel2D p, int v) {
-		if (p.getX() < 0 || p.getY() < 0 || p.getX() >= getWidth() || p.getY() >= getHeight()) {
-			return;
-		}
-		_map[p.getY()][p.getX()] = v;
+		setPixel(p.getX(), p.getY(), v);
 	}
 	@Override
-	/** 
+	/**
 	 * Fills this map with the new color (new_v) starting from p.
 	 * https://en.wikipedia.org/wiki/Flood_fill
 	 */
 	public int fill(Pixel2D xy, int new_v) {
+		return fill(xy, new_v, 0, 0, _w - 1, _h - 1);
+	}
+
+	/**
+	 * Fills the connected component of p in the new color (new_v), restricted to the box
+	 * [minX,maxX] x [minY,maxY] (inclusive, clipped to this map): pixels outside the box are
+	 * neither filled nor used to connect pixels inside it.
+	 * In cyclic mode the edges wrap around only along an axis the box covers completely.
+	 * @param p the pixel to start from.
+	 * @param new_v the new "color" to be filled in p's connected component.
+	 * @param minX the left column of the box.
+	 * @param minY the bottom row of the box.
+	 * @param maxX the right column of the box.
+	 * @param maxY the top row of the box.
+	 * @return the number of "filled" pixels.
+	 */
+	public int fill(Pixel2D p, int new_v, int minX, int minY, int maxX, int maxY) {
+		// Clip the box to the map
+		minX = Math.max(minX, 0);
+		minY = Math.max(minY, 0);
+		maxX = Math.min(maxX, _w - 1);
+		maxY = Math.min(maxY, _h - 1);
+		int x = p.getX(), y = p.getY();
+		if (x < minX || x > maxX || y < minY || y > maxY) {
+			return 0;
+		}
 		// Optimization: if the new color is the same as the original color, no filling is needed
-		if (new_v == _map[xy.getY()][xy.getX()]) {
+		int originColor = getPixel(x, y);
+		if (new_v == originColor) {
 			return 0;
 		}
-		// Perform recursive flood fill starting from the given pixel
-		// Store the original color to identify which pixels to fill
-		return recursiveFill(xy, _map[xy.getY()][xy.getX()], new_v, _cyclicFlag);
+		int filled = scanlineFill(indexOf(x, y), originColor, new_v, minX, minY, maxX, maxY);
+		if (_distanceCache != null) {
+			_distanceCache.cellsChanged(originColor, new_v);
+		}
+		return filled;
 	}
 
 	@Override
@@ -133,68 +279,132 @@ public class Map implements Map2D {
 	 * https://en.wikipedia.org/wiki/Breadth-first_search
 	 */
 	public Pixel2D[] shortestPath(Pixel2D p1, Pixel2D p2, int obsColor) {
-		Pixel2D[] ans = null;  // The result path
-		// Create a 2D array of nodes to track visited status and parent relationships
-		Node[][] nodeArray = new Node[_map.length][_map[0].length];
-		// Initialize all nodes with their corresponding pixel coordinates
-		for (int y = 0; y < _map.length; y++) {
-			for (int x = 0; x < _map[0].length; x++) {
-				nodeArray[y][x] = new Node(new Index2D(x, y));
+		PathStrategy strategy = _pathStrategy;
+		if (strategy == PathStrategy.AUTO) {
+			strategy = size() >= BIDIRECTIONAL_THRESHOLD ? PathStrategy.BIDIRECTIONAL : PathStrategy.BFS;
+		}
+		if (strategy == PathStrategy.BFS) {
+			return shortestPath(p1, p2, obsColor, search());
+		}
+		if (!isInside(p1) || !isInside(p2)) {
+			return null;
+		}
+		int source = indexOf(p1.getX(), p1.getY());
+		int target = indexOf(p2.getX(), p2.getY());
+		if (strategy == PathStrategy.A_STAR) {
+			if (_aStar == null) {
+				_aStar = new AStarSearch();
 			}
+			return _aStar.shortestPath(this, source, target, obsColor);
 		}
+		if (_bidirectional == null) {
+			_bidirectional = new BidirectionalBfs();
+		}
+		return _bidirectional.shortestPath(this, source, target, obsColor);
+	}
 
-		// Mark the starting node as visited (with null parent since it's the root)
-		nodeArray[p1.getY()][p1.getX()].visit(null);
+	/**
+	 * Same as {@link #shortestPath(Pixel2D, Pixel2D, int)}, using the given (reusable) search workspace.
+	 * @param p1 first coordinate (start point).
+	 * @param p2 second coordinate (end point).
+	 * @param obsColor the color which is addressed as an obstacle.
+	 * @param ws the workspace holding the BFS state.
+	 * @return the shortest path as an array of consecutive pixels, if none - returns null.
+	 */
+	public Pixel2D[] shortestPath(Pixel2D p1, Pixel2D p2, int obsColor, BfsWorkspace ws) {
+		if (!searchPath(p1, p2, obsColor, ws)) {
+			// No path found
+			return null;
+		}
+		return buildPath(ws, indexOf(p2.getX(), p2.getY()));
+	}
 
-		// Initialize the BFS queue with the starting node
-		Queue<Node> q = new LinkedList<>();
-		q.add(new Node(p1));
+	/**
+	 * Same as {@link #shortestPath(Pixel2D, Pixel2D, int, BfsWorkspace)}, but writes the path into a
+	 * reusable primitive path instead of allocating a pixel per step.
+	 * @param p1 first coordinate (start point).
+	 * @param p2 second coordinate (end point).
+	 * @param obsColor the color which is addressed as an obstacle.
+	 * @param ws the workspace holding the BFS state.
+	 * @param path the result; cleared if there is no path.
+	 * @return true iff a path was found.
+	 */
+	public boolean shortestPath(Pixel2D p1, Pixel2D p2, int obsColor, BfsWorkspace ws, IntPath path) {
+		if (!searchPath(p1, p2, obsColor, ws)) {
+			path.clear();
+			return false;
+		}
+		fillPath(ws, indexOf(p2.getX(), p2.getY()), path);
+		return true;
+	}
 
-		// BFS main loop: process nodes level by level
-		while (!q.isEmpty()) {
-			Node current = q.poll();
-			// Skip obstacle pixels
-			if (getPixel(current.current) == obsColor) {
-				continue;
-			}
-			// Check if we've reached the destination
-			if (current.current.equals(p2)) {
-				// Reconstruct the path by following parent pointers backwards
-				ArrayList<Pixel2D> path = new ArrayList<>();
-				while (current.parent != null) {
-					// Add current node to the front of the path
-					path.add(0, current.current);
-					// Move to parent node
-					current = current.parent;
-				}
-				// Add the starting node (which has null parent)
-				path.add(0, current.current);
-				// Convert ArrayList to array and return
-				ans = path.toArray(new Pixel2D[0]);
-				return ans;
-			}
+	/**
+	 * Computes a shortest path between p1 and p2 through the cells whose values are passable,
+	 * e.g. "not a wall and not a power pellet" in a single search.
+	 * @param p1 first coordinate (start point).
+	 * @param p2 second coordinate (end point).
+	 * @param passable tests the value of a cell; the path only visits cells it accepts (including both ends).
+	 * @return the shortest path as an array of consecutive pixels, if none - returns null.
+	 */
+	public Pixel2D[] shortestPath(Pixel2D p1, Pixel2D p2, IntPredicate passable) {
+		BfsWorkspace ws = search();
+		if (!searchPath(p1, p2, passable, ws)) {
+			return null;
+		}
+		return buildPath(ws, indexOf(p2.getX(), p2.getY()));
+	}
 
-			// Get all valid neighbors of the current node
-			ArrayList<Pixel2D> neighbors = getAllNeighbors((Pixel2D)current.current, _cyclicFlag);
-			// Process each neighbor
-			for (Pixel2D neighbor : neighbors) {
-				// Only process unvisited neighbors
-				if (!nodeArray[neighbor.getY()][neighbor.getX()].visited) {
-					// Mark neighbor as visited and set current as its parent
-					nodeArray[neighbor.getY()][neighbor.getX()].visit(current);
-					// Add neighbor to queue for further exploration
-					q.add(nodeArray[neighbor.getY()][neighbor.getX()]);
-				}
-			}
+	/**
+	 * Same as {@link #shortestPath(Pixel2D, Pixel2D, IntPredicate)}, using the given (reusable) search
+	 * workspace and writing the path into a reusable primitive path.
+	 * @param ws the workspace holding the BFS state.
+	 * @param path the result; cleared if there is no path.
+	 * @return true iff a path was found.
+	 */
+	public boolean shortestPath(Pixel2D p1, Pixel2D p2, IntPredicate passable, BfsWorkspace ws, IntPath path) {
+		if (!searchPath(p1, p2, passable, ws)) {
+			path.clear();
+			return false;
+		}
+		fillPath(ws, indexOf(p2.getX(), p2.getY()), path);
+		return true;
+	}
+
+	/**
+	 * Returns the first step of the path {@link #shortestPath(Pixel2D, Pixel2D, int, BfsWorkspace)}
+	 * would return (its pixel at index 1), without building the path.
+	 * @param from the start point.
+	 * @param to the end point.
+	 * @param obsColor the color which is addressed as an obstacle.
+	 * @param ws the workspace holding the BFS state.
+	 * @return the neighbor of from to move to, null if from == to or there is no path.
+	 */
+	public Pixel2D firstStep(Pixel2D from, Pixel2D to, int obsColor, BfsWorkspace ws) {
+		if (!searchPath(from, to, obsColor, ws)) {
+			return null;
 		}
-		// No path found
-		return null;
+		int source = indexOf(from.getX(), from.getY());
+		int c = indexOf(to.getX(), to.getY());
+		if (c == source) {
+			return null;
+		}
+		while (ws.parent(c) != source) {
+			c = ws.parent(c);
+		}
+		return PackedPixel.of(xOf(c), yOf(c));
+	}
+
+	/**
+	 * Same as {@link #firstStep(Pixel2D, Pixel2D, int, BfsWorkspace)}, using the search workspace of this map.
+	 */
+	public Pixel2D firstStep(Pixel2D from, Pixel2D to, int obsColor) {
+		return firstStep(from, to, obsColor, search());
 	}
 
 	@Override
 	public boolean isInside(Pixel2D p) {
 		// Check if x is within [0, width) and y is within [0, height)
-		return (p.getX() >= 0 && p.getY() >= 0 && p.getX() < getWidth() && p.getY() <  getHeight());
+		return (p.getX() >= 0 && p.getY() >= 0 && p.getX() < _w && p.getY() < _h);
 	}
 
 	@Override
@@ -203,162 +413,593 @@ public class Map implements Map2D {
 	}
 
 	@Override
-	public void setCyclic(boolean cy) {_cyclicFlag = cy;}
+	public void setCyclic(boolean cy) {
+		if (cy != _cyclicFlag && _distanceCache != null) {
+			// Wrapping changes every distance
+			_distanceCache.clear();
+		}
+		_cyclicFlag = cy;
+	}
+
+	/**
+	 * @return the search used by {@link #shortestPath(Pixel2D, Pixel2D, int)}.
+	 */
+	public PathStrategy getPathStrategy() {return _pathStrategy;}
+
+	/**
+	 * Set the search used by {@link #shortestPath(Pixel2D, Pixel2D, int)} (AUTO by default).
+	 * @param strategy the path search strategy.
+	 */
+	public void setPathStrategy(PathStrategy strategy) {_pathStrategy = strategy;}
+
+	/**
+	 * @return the number of cells from which {@link #allDistance(Pixel2D, int)} uses the bit-parallel BFS.
+	 */
+	public int getBitParallelThreshold() {return _bitParallelThreshold;}
+
+	/**
+	 * Set the number of cells from which {@link #allDistance(Pixel2D, int)} uses the bit-parallel BFS
+	 * (0 - always, Integer.MAX_VALUE - never).
+	 * @param cells the size threshold.
+	 */
+	public void setBitParallelThreshold(int cells) {_bitParallelThreshold = cells;}
+
+	/**
+	 * @return the number of cells from which {@link #allDistance(Pixel2D, int)} uses the multi-threaded BFS.
+	 */
+	public int getParallelThreshold() {return _parallelThreshold;}
+
+	/**
+	 * Set the number of cells from which {@link #allDistance(Pixel2D, int)} expands every BFS level
+	 * with the threads of the common ForkJoinPool (0 - always, Integer.MAX_VALUE - never).
+	 * This takes precedence over the bit-parallel threshold.
+	 * @param cells the size threshold.
+	 */
+	public void setParallelThreshold(int cells) {_parallelThreshold = cells;}
 
 	@Override
 	/////// add your code below ///////
 	public Map2D allDistance(Pixel2D start, int obsColor) {
+		if (size() < _bitParallelThreshold && size() < _parallelThreshold) {
+			return allDistance(start, obsColor, search());
+		}
+		Map ans = new Map(_w, _h, -1);
+		if (!isInside(start) || getPixel(start) == obsColor) {
+			return ans;
+		}
+		int source = indexOf(start.getX(), start.getY());
+		if (size() >= _parallelThreshold) {
+			// Huge map: split every BFS level between several threads
+			if (_parallelBfs == null) {
+				_parallelBfs = new ParallelBfs();
+			}
+			_parallelBfs.allDistance(this, source, obsColor, ans._map);
+		}
+		else {
+			// Large map: expand whole BFS levels with word operations on bitsets
+			if (_bitBfs == null) {
+				_bitBfs = new BitBfs();
+			}
+			_bitBfs.allDistance(this, source, obsColor, ans._map);
+		}
+		return ans;
+	}
+
+	/**
+	 * Same as {@link #allDistance(Pixel2D, int)}, using the given (reusable) search workspace.
+	 * @param start the source (starting) point
+	 * @param obsColor the color representing obstacles
+	 * @param ws the workspace holding the BFS state.
+	 * @return a new map with all the shortest path distances from the starting point to each entry in this map.
+	 */
+	public Map2D allDistance(Pixel2D start, int obsColor, BfsWorkspace ws) {
 		// Initialize result map with -1 (unreachable) for all pixels
-		Map2D ans = new Map(getWidth(), getHeight(), -1);
-		// If starting position is an obstacle, return map with all -1
-		if (getPixel(start) == obsColor) {
+		Map ans = new Map(_w, _h, -1);
+		// If starting position is outside the map or an obstacle, return map with all -1
+		if (ws.run(this, start, obsColor) == 0) {
 			return ans;
 		}
-		// Set starting position distance to 0
-		ans.setPixel(start, 0);
-
-		// Initialize BFS queue with starting pixel
-		Queue<Pixel2D> q = new LinkedList<>();
-		q.add(start);
-
-		// BFS main loop: explore all reachable pixels
-		while (!q.isEmpty()) {
-			Pixel2D current = q.poll();
-			// Get all valid neighbors of current pixel
-			ArrayList<Pixel2D> neighbors = getAllNeighbors(current, _cyclicFlag);
-
-			// Process each neighbor
-			for (Pixel2D neighbor : neighbors) {
-				// Check if neighbor hasn't been visited yet (distance == -1) and is not an obstacle
-				if (ans.getPixel(neighbor) == -1 && this.getPixel(neighbor) != obsColor) {
-					// Set neighbor's distance to current distance + 1
-					ans.setPixel(neighbor, ans.getPixel(current) + 1);
-					// Add neighbor to queue for further exploration
-					q.add(neighbor);
-				}
+		// Copy the distances of the reached cells only
+		for (int i = 0; i < ws.count(); i++) {
+			int cell = ws.visitedCell(i);
+			ans._map[cell] = ws.distance(cell);
+		}
+		return ans;
+	}
+
+	/**
+	 * Computes, in a single BFS, a new map with the shortest path distance (obstacle avoiding)
+	 * from each entry to its nearest source. None accessible entries are marked -1.
+	 * @param sources the source points; sources outside the map or on an obstacle are ignored.
+	 * @param obsColor the color representing obstacles.
+	 * @param nearestSource if not null (and of the same dimensions as this map), each entry is set to the
+	 * ordinal (in iteration order) of its nearest source, or -1 if it is not accessible.
+	 * @return a new map with the distance of each entry to its nearest source.
+	 */
+	public Map2D allDistance(Collection<? extends Pixel2D> sources, int obsColor, Map2D nearestSource) {
+		BfsWorkspace ws = search();
+		Map ans = new Map(_w, _h, -1);
+		if (nearestSource != null) {
+			nearestSource.init(_w, _h, -1);
+		}
+		ws.run(this, sources, obsColor);
+		for (int i = 0; i < ws.count(); i++) {
+			int cell = ws.visitedCell(i);
+			ans._map[cell] = ws.distance(cell);
+			if (nearestSource != null) {
+				nearestSource.setPixel(xOf(cell), yOf(cell), ws.origin(cell));
 			}
 		}
 		return ans;
 	}
 
-	////////////////////// Private Methods ///////////////////////
+	/**
+	 * Computes the shortest path distances from start to every cell, moving only through the cells
+	 * whose values are passable. None accessible entries (including start, if it is not passable) are marked -1.
+	 * @param start the source (starting) point.
+	 * @param passable tests the value of a cell.
+	 * @return a new map with the distance of each entry from start.
+	 */
+	public Map2D allDistance(Pixel2D start, IntPredicate passable) {
+		BfsWorkspace ws = search();
+		Map ans = new Map(_w, _h, -1);
+		ws.run(this, start, passable);
+		for (int i = 0; i < ws.count(); i++) {
+			int cell = ws.visitedCell(i);
+			ans._map[cell] = ws.distance(cell);
+		}
+		return ans;
+	}
 
 	/**
-	 * Gets all valid neighbors of a given pixel (up, down, left, right).
-	 * In non-cyclic mode, only returns neighbors within map boundaries.
-	 * In cyclic mode, edges wrap around (e.g., right edge connects to left edge).
-	 *
-	 * @param p the pixel to get neighbors for
-	 * @param cyclic if true, map is cyclic (edges wrap around), otherwise edges are boundaries
-	 * @return an ArrayList of valid neighboring pixels
+	 * Finds the k cells of a given color closest to start (obstacle avoiding), with a BFS that stops
+	 * as soon as the k-th one is reached, so its cost depends on the search radius and not on the map size.
+	 * @param start the source (starting) point.
+	 * @param targetColor the color of the cells to find (start itself counts if it has this color).
+	 * @param k the number of cells to find.
+	 * @param obsColor the color representing obstacles.
+	 * @return the found cells ordered by distance (ties in BFS order), fewer than k if fewer are reachable.
 	 */
-	private ArrayList<Pixel2D> getAllNeighbors(Pixel2D p, boolean cyclic) {
-		ArrayList<Pixel2D> neighbors = new ArrayList<>();
+	public Pixel2D[] nearest(Pixel2D start, int targetColor, int k, int obsColor) {
+		return nearest(start, targetColor, k, obsColor, null, search());
+	}
 
-		// Add the up neighbor (increasing Y coordinate)
-		if (p.getY() < getHeight() - 1) {
-			// Standard case: not at top edge
-			neighbors.add(new Index2D(p.getX(), p.getY() + 1));
+	/**
+	 * Same as {@link #nearest(Pixel2D, int, int, int)}, using the given (reusable) search workspace.
+	 * @param distances if not null (and of at least k entries), entry i is set to the distance of the i-th found cell.
+	 * @param ws the workspace holding the BFS state.
+	 * @return the found cells ordered by distance (ties in BFS order).
+	 */
+	public Pixel2D[] nearest(Pixel2D start, int targetColor, int k, int obsColor, int[] distances, BfsWorkspace ws) {
+		ws.begin(this);
+		if (k <= 0 || !isInside(start) || !ws.seed(indexOf(start.getX(), start.getY()), 0, obsColor)) {
+			return new Pixel2D[0];
 		}
-		else if (cyclic) {
-			// Cyclic case: wrap to bottom of map
-			neighbors.add(new Index2D(p.getX(), 0));
+		int[] found = new int[Math.min(k, size())];
+		int count = ws.collect(targetColor, found.length, obsColor, found);
+		Pixel2D[] ans = new Pixel2D[count];
+		for (int i = 0; i < count; i++) {
+			ans[i] = PackedPixel.of(xOf(found[i]), yOf(found[i]));
+			if (distances != null) {
+				distances[i] = ws.distance(found[i]);
+			}
 		}
+		return ans;
+	}
+
+	/**
+	 * Streams a BFS from start (obstacle avoiding) to a visitor, see
+	 * {@link BfsWorkspace#traverse(Map, Pixel2D, int, int, CellVisitor)}: the visitor gets every reached
+	 * cell index (y*width + x) and its distance in BFS order and may stop the search, and nothing is allocated.
+	 * @param start the source (starting) point.
+	 * @param obsColor the color representing obstacles.
+	 * @param maxDistance the largest distance to reach (Integer.MAX_VALUE for no bound).
+	 * @param visitor called with every reached cell.
+	 * @return the number of cells passed to the visitor.
+	 */
+	public int traverse(Pixel2D start, int obsColor, int maxDistance, CellVisitor visitor) {
+		return search().traverse(this, start, obsColor, maxDistance, visitor);
+	}
 
-		// Add the down neighbor (decreasing Y coordinate)
-		if (p.getY() > 0) {
-			// Standard case: not at bottom edge
-			neighbors.add(new Index2D(p.getX(), p.getY() - 1));
+	/**
+	 * A 64-bit fingerprint of the whole map (size, cyclic flag and every value), for cheap
+	 * "is this the same map" checks (e.g. keying caches or detecting an unchanged board).
+	 * Zobrist hashing: the first call hashes every cell, later changes (setPixel, fill) update the
+	 * hashes in O(1) per changed cell, and a call costs O(number of distinct values).
+	 * Equal maps have equal fingerprints; different maps collide with probability about 2^-64.
+	 * @return the fingerprint of the current content of this map.
+	 */
+	public long fingerprint() {
+		long h = shapeHash();
+		for (java.util.Map.Entry<Integer, long[]> e : colorHashes().entrySet()) {
+			long cells = e.getValue()[0];
+			// A value no cell holds anymore does not count
+			if (cells != 0) {
+				h ^= mix(cells ^ mix(e.getKey() + 0x632BE59BD9B4E019L));
+			}
 		}
-		else if (cyclic) {
-			// Cyclic case: wrap to top of map
-			neighbors.add(new Index2D(p.getX(), getHeight() - 1));
+		return mix(h);
+	}
+
+	/**
+	 * A 64-bit fingerprint of the obstacles of this map: the size, the cyclic flag and the set of
+	 * cells of the given color. Changes of other values (e.g. eating a dot) keep it, so it identifies
+	 * the maps on which every BFS with this obstacle color gives the same distances.
+	 * Maintained like {@link #fingerprint()}.
+	 * @param obsColor the color representing obstacles.
+	 * @return the passability fingerprint of this map.
+	 */
+	public long passabilityFingerprint(int obsColor) {
+		long[] cells = colorHashes().get(obsColor);
+		return mix(shapeHash() + (cells == null ? 0 : cells[0]));
+	}
+
+	////////////////////// Cell index access ///////////////////////
+
+	/**
+	 * @return the number of cells in this map (width*height).
+	 */
+	int size() {return _w * _h;}
+
+	/**
+	 * @return the index of the cell (x,y) in the row-major cell array.
+	 */
+	int indexOf(int x, int y) {return y * _w + x;}
+
+	/** @return the x coordinate of the given cell index. */
+	int xOf(int cell) {return cell % _w;}
+
+	/** @return the y coordinate of the given cell index. */
+	int yOf(int cell) {return cell / _w;}
+
+	/** @return the value stored in the given cell index. */
+	int valueAt(int cell) {
+		int[] map = _map;
+		if (map != null) {
+			return map[cell];
+		}
+		int[][] columns = _columns;
+		if (columns != null) {
+			int y = rowOf(cell);
+			return columns[cell - y * _w][y];
 		}
+		return _store.get(cell);
+	}
 
-		// Add the right neighbor (increasing X coordinate)
-		if (p.getX() < getWidth() - 1) {
-			// Standard case: not at right edge
-			neighbors.add(new Index2D(p.getX() + 1, p.getY()));
+	/** Sets the value stored in the given cell index. */
+	void setValueAt(int cell, int v) {
+		int old = valueAt(cell);
+		store(cell, v);
+		if (old == v) {
+			return;
+		}
+		if (_colorHash != null) {
+			long key = cellKey(cell);
+			colorHash(old)[0] ^= key;
+			colorHash(v)[0] ^= key;
+		}
+		if (_distanceCache != null) {
+			_distanceCache.cellsChanged(old, v);
+		}
+	}
+
+	/**
+	 * Attaches the cache that is told about every change of this map (null to detach).
+	 */
+	void setDistanceCache(DistanceFieldCache cache) {_distanceCache = cache;}
+
+	/**
+	 * Returns the index of the neighbor of a cell in the given direction.
+	 * In non-cyclic mode a move across the map border has no neighbor.
+	 * In cyclic mode edges wrap around (e.g., right edge connects to left edge).
+	 *
+	 * @param cell the cell index
+	 * @param dir one of UP, DOWN, RIGHT, LEFT
+	 * @return the neighbor cell index, or -1 if there is none
+	 */
+	int neighbor(int cell, int dir) {
+		boolean edge;
+		switch (dir) {
+			case UP: edge = cell >= size() - _w; break;
+			case DOWN: edge = cell < _w; break;
+			case RIGHT: edge = cell % _w == _w - 1; break;
+			default: edge = cell % _w == 0; break;
 		}
-		else if (cyclic) {
-			// Cyclic case: wrap to left edge of map
-			neighbors.add(new Index2D(0, p.getY()));
+		if (!edge) {
+			return cell + _step[dir];
 		}
+		return _cyclicFlag ? cell + _wrap[dir] : -1;
+	}
+
+	////////////////////// Private Methods ///////////////////////
 
-		// Add the left neighbor (decreasing X coordinate)
-		if (p.getX() > 0) {
-			// Standard case: not at left edge
-			neighbors.add(new Index2D(p.getX() - 1, p.getY()));
+	/**
+	 * @return the height of an x-major array.
+	 * @throws IllegalArgumentException if the array is empty or ragged.
+	 */
+	private static int columnHeight(int[][] columns) {
+		if (columns == null || columns.length == 0 || columns[0] == null || columns[0].length == 0) {
+			throw new IllegalArgumentException("Map data must be a non-empty 2D array");
 		}
-		else if (cyclic) {
-			// Cyclic case: wrap to right edge of map
-			neighbors.add(new Index2D(getWidth() - 1, p.getY()));
+		int h = columns[0].length;
+		for (int x = 0; x < columns.length; x++) {
+			if (columns[x] == null || columns[x].length != h) {
+				throw new IllegalArgumentException("Map data must not be a ragged array (column " + x + ")");
+			}
 		}
+		return h;
+	}
 
-		return neighbors;
+	/** The splitmix64 finalizer: a bijective 64-bit mix. */
+	private static long mix(long z) {
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+
+	/** @return the Zobrist key of a cell index (never 0: mix(0) is 0, so the index is offset by one). */
+	private static long cellKey(int cell) {return mix((cell + 1L) * 0x9E3779B97F4A7C15L);}
+
+	/** @return the row (y) of a cell index, by a multiplication instead of a division. */
+	private int rowOf(int cell) {return (int) ((cell * _rowMagic) >>> _rowShift);}
+
+	/** @return the hash of the size and cyclic flag. */
+	private long shapeHash() {
+		return mix(((long) _w << 32 | _h) ^ (_cyclicFlag ? 0x5DEECE66DL : 0));
+	}
+
+	/** @return the per-value cell hashes, computed on the first call. */
+	private HashMap<Integer, long[]> colorHashes() {
+		if (_colorHash == null) {
+			_colorHash = new HashMap<>();
+			// Runs of equal values share one lookup
+			int last = 0;
+			long[] lastHash = null;
+			for (int cell = 0, n = size(); cell < n; cell++) {
+				int v = valueAt(cell);
+				if (lastHash == null || v != last) {
+					last = v;
+					lastHash = colorHash(last);
+				}
+				lastHash[0] ^= cellKey(cell);
+			}
+		}
+		return _colorHash;
+	}
+
+	/** @return the (mutable) hash of the cells of value v, created empty if needed. */
+	private long[] colorHash(int v) {
+		return _colorHash.computeIfAbsent(v, k -> new long[1]);
+	}
+
+	/** Writes a cell, without any bookkeeping. */
+	private void store(int cell, int v) {
+		if (_columns != null) {
+			int y = rowOf(cell);
+			_columns[cell - y * _w][y] = v;
+			return;
+		}
+		if (_map != null) {
+			_map[cell] = v;
+		}
+		else {
+			_store.set(cell, v);
+		}
 	}
 
 	/**
-	 * Recursively fills a connected component of pixels with the same color.
-	 * This is the core of the flood fill algorithm.
-	 *
-	 * @param index the current pixel being processed
-	 * @param originColor the original color that should be replaced
-	 * @param new_v the new color to fill with
-	 * @param cyclic if true, treats the map as cyclic (edges wrap around)
-	 * @return the number of pixels filled by this recursive call and its children
+	 * Allocates the cell array for a w*h map (dropping the storage of a view) and precomputes the neighbor offsets.
 	 */
-	public int recursiveFill(Pixel2D index, int originColor, int new_v,  boolean cyclic) {
-		// Base case: if current pixel doesn't have the origin color, stop recursion
-		if (_map[index.getY()][index.getX()] != originColor) {
-			return 0;
+	private void resize(int w, int h) {
+		shape(w, h);
+		_map = new int[w * h];
+		_columns = null;
+		_store = null;
+	}
+
+	/**
+	 * Allocates the cells of a w*h map, all set to v: off-heap if the map is off-heap, else in an int array
+	 * (dropping the storage of a view).
+	 */
+	private void allocate(int w, int h, int v) {
+		if (_store instanceof ByteStore) {
+			if (w <= 0 || h <= 0 || (long) w * h > Integer.MAX_VALUE) {
+				throw new IllegalArgumentException("Bad off-heap map dimensions: " + w + "x" + h);
+			}
+			shape(w, h);
+			_store = new ByteStore(w * h, v);
 		}
+		else {
+			resize(w, h);
+			java.util.Arrays.fill(_map, v);
+		}
+	}
 
-		// Fill current pixel with new color
-		_map[index.getY()][index.getX()] = new_v;
-		int result = 1;  // Count this pixel
+	/**
+	 * Sets the dimensions of the map and precomputes the neighbor offsets.
+	 */
+	private void shape(int w, int h) {
+		if (w <= 0 || h <= 0) {
+			throw new IllegalArgumentException("Map dimensions must be positive: " + w + "x" + h);
+		}
+		_w = w;
+		_h = h;
+		// ceil(2^(31+l) / w) with 2^l >= w is exact for every index below 2^31 (Granlund-Montgomery)
+		int l = 32 - Integer.numberOfLeadingZeros(w - 1);
+		_rowShift = 31 + l;
+		_rowMagic = ((1L << _rowShift) + w - 1) / w;
+		// UP increases y, DOWN decreases y, RIGHT increases x, LEFT decreases x
+		_step[UP] = w;
+		_step[DOWN] = -w;
+		_step[RIGHT] = 1;
+		_step[LEFT] = -1;
+		// Crossing a border jumps to the opposite row / column
+		_wrap[UP] = -(h - 1) * w;
+		_wrap[DOWN] = (h - 1) * w;
+		_wrap[RIGHT] = -(w - 1);
+		_wrap[LEFT] = w - 1;
+	}
 
-		// Recursively fill all neighbors that have the same origin color
-		ArrayList<Pixel2D> neighbors = getAllNeighbors(index, cyclic);
-		for (Pixel2D neighbor : neighbors) {
-			// Add the count of pixels filled by recursive calls
-			result += recursiveFill(neighbor, originColor, new_v, cyclic);
+	/**
+	 * @return the search workspace owned by this map (created on first use).
+	 */
+	private BfsWorkspace search() {
+		if (_search == null) {
+			_search = new BfsWorkspace();
 		}
+		return _search;
+	}
 
-		return result;
+	/**
+	 * Runs a BFS from p1 that stops as soon as p2 is reached.
+	 * @return true iff both points are inside the map, neither is an obstacle, and p2 was reached.
+	 */
+	private boolean searchPath(Pixel2D p1, Pixel2D p2, int obsColor, BfsWorkspace ws) {
+		if (!isInside(p1) || !isInside(p2)) {
+			return false;
+		}
+		int source = indexOf(p1.getX(), p1.getY());
+		int target = indexOf(p2.getX(), p2.getY());
+		// A path can neither start nor end on an obstacle
+		if (valueAt(source) == obsColor || valueAt(target) == obsColor) {
+			return false;
+		}
+		ws.begin(this);
+		return ws.search(source, target, obsColor);
 	}
-}
 
+	/**
+	 * Same as {@link #searchPath(Pixel2D, Pixel2D, int, BfsWorkspace)} through the passable cells.
+	 */
+	private boolean searchPath(Pixel2D p1, Pixel2D p2, IntPredicate passable, BfsWorkspace ws) {
+		ws.begin(this);
+		if (!isInside(p1) || !isInside(p2) || !passable.test(getPixel(p2))) {
+			return false;
+		}
+		return ws.search(indexOf(p1.getX(), p1.getY()), indexOf(p2.getX(), p2.getY()), passable);
+	}
 
-/**
- * Helper class used for BFS pathfinding algorithm.
- * Stores a pixel, its parent in the search tree, and visited status.
- */
-class Node {
-	/** The pixel coordinate this node represents */
-	public Pixel2D current;
-	/** The parent node in the BFS tree (null for the root) */
-	public Node parent;
-	/** Whether this node has been visited during BFS */
-	public boolean visited;
+	/**
+	 * Writes the path to target found by the last search of ws into path.
+	 */
+	private void fillPath(BfsWorkspace ws, int target, IntPath path) {
+		// The BFS distance of the target is the number of steps, so the path is filled back to front
+		int length = ws.distance(target) + 1;
+		int[] cells = path.reset(this, length);
+		int c = target;
+		for (int i = length - 1; i >= 0; i--) {
+			cells[i] = c;
+			c = ws.parent(c);
+		}
+	}
 
 	/**
-	 * Constructs a new Node with the given pixel.
-	 * @param p the pixel coordinate for this node
+	 * Rebuilds the path from source to target by following the parent links backwards.
+	 * @param ws a workspace whose last search reached target from source
+	 * @return the path as an array of consecutive pixels, starting at source
 	 */
-	public Node(Pixel2D p) {
-		this.current = p;
-		this.parent = null;
-		this.visited = false;
+	private Pixel2D[] buildPath(BfsWorkspace ws, int target) {
+		// The BFS distance of the target is the number of steps, so the array is filled back to front
+		int length = ws.distance(target) + 1;
+		Pixel2D[] path = new Pixel2D[length];
+		int c = target;
+		for (int i = length - 1; i >= 0; i--) {
+			path[i] = PackedPixel.of(xOf(c), yOf(c));
+			c = ws.parent(c);
+		}
+		return path;
 	}
 
 	/**
-	 * Marks this node as visited and sets its parent.
-	 * Used during BFS to track the path back to the starting node.
-	 * @param parent the parent node in the BFS tree
+	 * Iterative scanline (span) flood fill, see:
+	 * https://en.wikipedia.org/wiki/Flood_fill#Span_filling
+	 * Each popped seed is widened to the whole horizontal run of originColor around it, the run is
+	 * filled, and the rows above and below are scanned along the run, pushing one seed for every
+	 * run of originColor found there. The seed stack holds cell indices only, so the auxiliary
+	 * memory is proportional to the number of pending runs rather than to the number of pixels.
+	 *
+	 * @param seed the cell to start from (must have originColor and be inside the box)
+	 * @param originColor the original color that should be replaced
+	 * @param new_v the new color to fill with (different from originColor)
+	 * @return the number of filled pixels
 	 */
-	public void visit(Node parent) {
-		this.parent = parent;
-		this.visited = true;
+	private int scanlineFill(int seed, int originColor, int new_v, int minX, int minY, int maxX, int maxY) {
+		int boxWidth = maxX - minX + 1;
+		// Wrapping is only meaningful along an axis the box covers completely
+		boolean wrapX = _cyclicFlag && boxWidth == _w;
+		boolean wrapY = _cyclicFlag && maxY - minY + 1 == _h;
+		int[] stack = new int[64];
+		int top = 0;
+		stack[top++] = seed;
+		int result = 0;
+		// XOR of the keys of the filled cells, moved from originColor to new_v in the fingerprints at the end
+		long keys = 0;
+
+		while (top > 0) {
+			int cell = stack[--top];
+			// A seed may have been filled by another run since it was pushed
+			if (valueAt(cell) != originColor) {
+				continue;
+			}
+			int y = yOf(cell);
+			int rowStart = y * _w;
+
+			// Widen the seed to the left, then to the right, never covering more than the box width
+			int left = xOf(cell);
+			int length = 1;
+			while (length < boxWidth) {
+				int prev = left > minX ? left - 1 : (wrapX ? maxX : -1);
+				if (prev < 0 || valueAt(rowStart + prev) != originColor) {
+					break;
+				}
+				left = prev;
+				length++;
+			}
+			int right = xOf(cell);
+			while (length < boxWidth) {
+				int next = right < maxX ? right + 1 : (wrapX ? minX : -1);
+				if (next < 0 || valueAt(rowStart + next) != originColor) {
+					break;
+				}
+				right = next;
+				length++;
+			}
+
+			// Fill the run
+			for (int i = 0, x = left; i < length; i++, x = (x == maxX ? minX : x + 1)) {
+				store(rowStart + x, new_v);
+				if (_colorHash != null) {
+					keys ^= cellKey(rowStart + x);
+				}
+			}
+			result += length;
+
+			// Scan the rows above and below the run for runs of the origin color
+			int above = y < maxY ? y + 1 : (wrapY ? minY : -1);
+			int below = y > minY ? y - 1 : (wrapY ? maxY : -1);
+			for (int side = 0; side < 2; side++) {
+				int row = side == 0 ? above : below;
+				if (row < 0) {
+					continue;
+				}
+				int adjStart = row * _w;
+				boolean inRun = false;
+				for (int i = 0, x = left; i < length; i++, x = (x == maxX ? minX : x + 1)) {
+					boolean match = valueAt(adjStart + x) == originColor;
+					if (match && !inRun) {
+						if (top == stack.length) {
+							stack = java.util.Arrays.copyOf(stack, top * 2);
+						}
+						stack[top++] = adjStart + x;
+					}
+					inRun = match;
+				}
+			}
+		}
+		if (_colorHash != null) {
+			colorHash(originColor)[0] ^= keys;
+			colorHash(new_v)[0] ^= keys;
+		}
+		return result;
 	}
 }
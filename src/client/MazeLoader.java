@@ -0,0 +1,43 @@
+package client;
+
+import server.MazeFile;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Loads and saves maps in the binary maze file format of {@link MazeFile}.
+ * A loaded map reads its cells straight from the memory-mapped file (through the same byte-per-cell
+ * store as {@link Map#offHeap(int, int, int)}), so nothing is copied onto the heap and a huge maze
+ * is paged in as it is searched. Changes to a loaded map stay in memory and never reach the file.
+ * Loading checks the whole file once (see {@link MazeFile#open(Path)}), so a corrupt file fails to
+ * load instead of failing on a later read.
+ */
+public class MazeLoader {
+	private MazeLoader() {}
+
+	/**
+	 * @param file a maze file.
+	 * @return a map over the mapped cells of the file, with the file's cyclic flag. Like an
+	 * {@link Map#offHeap(int, int, int) off-heap} map it holds at most 256 distinct values (a write of
+	 * another one throws an IllegalArgumentException), and if the file has no write permission its
+	 * cells are read-only (a write throws an UnsupportedOperationException); the cells are never copied to the heap.
+	 * @throws IOException if the file cannot be read or is not a valid maze file.
+	 */
+	public static Map load(Path file) throws IOException {
+		MazeFile maze = MazeFile.open(file);
+		Map map = new Map(maze.getWidth(), maze.getHeight(), new ByteStore(maze.getCells(), maze.getPalette()));
+		map.setCyclic(maze.isCyclic());
+		return map;
+	}
+
+	/**
+	 * Saves a map as a maze file.
+	 * @param map the map to save (at most MazeFile.MAX_PALETTE distinct values).
+	 * @param file the file to (over)write.
+	 * @throws IOException if the file cannot be written.
+	 */
+	public static void save(Map2D map, Path file) throws IOException {
+		MazeFile.write(file, map.getWidth(), map.getHeight(), map.isCyclic(), map::getPixel);
+	}
+}
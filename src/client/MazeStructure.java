@@ -0,0 +1,260 @@
+package client;
+
+import java.util.Arrays;
+
+/**
+ * One-time structural analysis of a static maze, kept in primitive arrays for O(1) lookups:
+ * <ul>
+ * <li>articulation points - the cells whose removal disconnects the maze (corridor chokepoints),</li>
+ * <li>biconnected components - the blocks of cells that stay connected after removing any one cell,</li>
+ * <li>dead-end pockets - the tree-shaped parts of the maze that hang off its cycles, with the depth of
+ * every pocket cell (its distance from the cycle the pocket hangs off; 0 for cells on a cycle).</li>
+ * </ul>
+ * Articulation points and components come from an iterative Tarjan DFS (no recursion, so huge mazes
+ * do not overflow the stack), and pockets from repeatedly peeling cells with a single walkable neighbor.
+ * Moving to a neighbor of a larger pocket depth leads deeper into a trap. Everything is computed by
+ * the constructor and never changes afterwards, so a finished analysis can be read from any thread.
+ */
+public class MazeStructure {
+	/** The analyzed maze, walked by the DFS and by the peeling; lookups also bound-check against it. */
+	private final Map _grid;
+	private final int _obsColor;
+	private final boolean[] _articulation;
+	/** _component[cell] is a biconnected component containing the cell, -1 for obstacles. */
+	private final int[] _component;
+	private int _componentCount = 0;
+	/** _depth[cell] is the pocket depth of the cell, -1 for obstacles. */
+	private final int[] _depth;
+
+	/**
+	 * Analyzes the given maze.
+	 * @param map the maze to analyze.
+	 * @param obsColor the color representing obstacles.
+	 */
+	public MazeStructure(Map2D map, int obsColor) {
+		_grid = new Map(map.getMap());
+		_grid.setCyclic(map.isCyclic());
+		_obsColor = obsColor;
+		int n = _grid.size();
+		_articulation = new boolean[n];
+		_component = new int[n];
+		_depth = new int[n];
+		Arrays.fill(_component, -1);
+		Arrays.fill(_depth, -1);
+		findComponents();
+		findPockets();
+	}
+
+	/** @return true iff p is a walkable cell whose removal disconnects the maze. */
+	public boolean isArticulationPoint(Pixel2D p) {
+		return _grid.isInside(p) && _articulation[cellOf(p)];
+	}
+
+	/**
+	 * @return the biconnected component of p (for an articulation point, which lies in several components,
+	 * one of them), -1 if p is outside the map or an obstacle.
+	 */
+	public int componentOf(Pixel2D p) {
+		return _grid.isInside(p) ? _component[cellOf(p)] : -1;
+	}
+
+	/** @return the number of biconnected components (an isolated walkable cell is a component of its own). */
+	public int componentCount() {return _componentCount;}
+
+	/**
+	 * @return the depth of p in its dead-end pocket: 0 on a cycle of the maze, k for the k-th cell into a
+	 * pocket (a maze part without cycles is measured from its center), -1 if p is outside the map or an obstacle.
+	 */
+	public int pocketDepth(Pixel2D p) {
+		return _grid.isInside(p) ? _depth[cellOf(p)] : -1;
+	}
+
+	/**
+	 * @return true iff moving from one cell to its neighbor leads deeper into a dead-end pocket.
+	 */
+	public boolean leadsDeeper(Pixel2D from, Pixel2D to) {
+		return pocketDepth(to) > pocketDepth(from);
+	}
+
+	////////////////////// Private Methods ///////////////////////
+
+	private boolean walkable(int cell) {return _grid.valueAt(cell) != _obsColor;}
+
+	private int cellOf(Pixel2D p) {return _grid.indexOf(p.getX(), p.getY());}
+
+	/**
+	 * @return the neighbor of cell in direction d if it is walkable, and neither the cell itself nor a
+	 * neighbor of an earlier direction (possible on tiny cyclic maps), -1 otherwise.
+	 */
+	private int distinctNeighbor(int cell, int d) {
+		int n = _grid.neighbor(cell, d);
+		if (n < 0 || n == cell || !walkable(n)) {
+			return -1;
+		}
+		for (int e = 0; e < d; e++) {
+			if (_grid.neighbor(cell, e) == n) {
+				return -1;
+			}
+		}
+		return n;
+	}
+
+	/**
+	 * Iterative Tarjan DFS: a non-root cell p is an articulation point iff some DFS child u has
+	 * low[u] >= disc[p], and the edges pushed since the edge (p,u) form one biconnected component.
+	 */
+	private void findComponents() {
+		int n = _grid.size();
+		int[] disc = new int[n];
+		int[] low = new int[n];
+		int[] parent = new int[n];
+		int[] nextDir = new int[n];
+		int[] stack = new int[n];
+		// Edge stack (each tree edge and back edge is pushed once)
+		int[] edgeFrom = new int[2 * n + Map.DIRECTIONS];
+		int[] edgeTo = new int[2 * n + Map.DIRECTIONS];
+		Arrays.fill(disc, -1);
+		int time = 0;
+		for (int root = 0; root < n; root++) {
+			if (!walkable(root) || disc[root] >= 0) {
+				continue;
+			}
+			int top = 0, edges = 0, rootChildren = 0;
+			stack[top++] = root;
+			disc[root] = low[root] = time++;
+			parent[root] = -1;
+			while (top > 0) {
+				int u = stack[top - 1];
+				if (nextDir[u] < Map.DIRECTIONS) {
+					int v = distinctNeighbor(u, nextDir[u]++);
+					if (v < 0) {
+						continue;
+					}
+					if (disc[v] < 0) {
+						// Tree edge
+						parent[v] = u;
+						disc[v] = low[v] = time++;
+						edgeFrom[edges] = u;
+						edgeTo[edges++] = v;
+						stack[top++] = v;
+						if (u == root) {
+							rootChildren++;
+						}
+					}
+					else if (v != parent[u] && disc[v] < disc[u]) {
+						// Back edge to an ancestor
+						low[u] = Math.min(low[u], disc[v]);
+						edgeFrom[edges] = u;
+						edgeTo[edges++] = v;
+					}
+					continue;
+				}
+				// All the neighbors of u are done
+				top--;
+				int p = parent[u];
+				if (p < 0) {
+					continue;
+				}
+				low[p] = Math.min(low[p], low[u]);
+				if (low[u] >= disc[p]) {
+					if (p != root) {
+						_articulation[p] = true;
+					}
+					// Pop the component of the edge (p,u)
+					int id = _componentCount++;
+					int a, b;
+					do {
+						a = edgeFrom[--edges];
+						b = edgeTo[edges];
+						if (_component[a] < 0) {
+							_component[a] = id;
+						}
+						if (_component[b] < 0) {
+							_component[b] = id;
+						}
+					} while (a != p || b != u);
+				}
+			}
+			if (rootChildren > 1) {
+				_articulation[root] = true;
+			}
+			if (rootChildren == 0) {
+				_component[root] = _componentCount++;
+			}
+		}
+	}
+
+	/**
+	 * Peels the cells with at most one walkable neighbor until only cycles (and the paths between them)
+	 * are left, then measures every peeled cell's distance from the cells that were left.
+	 */
+	private void findPockets() {
+		int n = _grid.size();
+		int[] degree = new int[n];
+		boolean[] peeled = new boolean[n];
+		int[] order = new int[n];
+		int peelCount = 0, head = 0;
+		for (int cell = 0; cell < n; cell++) {
+			if (!walkable(cell)) {
+				continue;
+			}
+			for (int d = 0; d < Map.DIRECTIONS; d++) {
+				if (distinctNeighbor(cell, d) >= 0) {
+					degree[cell]++;
+				}
+			}
+			if (degree[cell] <= 1) {
+				peeled[cell] = true;
+				order[peelCount++] = cell;
+			}
+		}
+		while (head < peelCount) {
+			int cell = order[head++];
+			for (int d = 0; d < Map.DIRECTIONS; d++) {
+				int m = distinctNeighbor(cell, d);
+				if (m >= 0 && !peeled[m] && --degree[m] <= 1) {
+					peeled[m] = true;
+					order[peelCount++] = m;
+				}
+			}
+		}
+
+		// Depth 0 for the cells left, then BFS outwards into the pockets
+		int[] queue = new int[n];
+		int tail = 0;
+		for (int cell = 0; cell < n; cell++) {
+			if (walkable(cell) && !peeled[cell]) {
+				_depth[cell] = 0;
+				queue[tail++] = cell;
+			}
+		}
+		tail = spread(queue, 0, tail);
+		// A maze part without cycles was peeled completely: measure it from the cell peeled last (its center)
+		for (int i = peelCount - 1; i >= 0; i--) {
+			int cell = order[i];
+			if (_depth[cell] < 0) {
+				_depth[cell] = 0;
+				queue[tail] = cell;
+				tail = spread(queue, tail, tail + 1);
+			}
+		}
+	}
+
+	/**
+	 * BFS over the cells of unknown depth, from queue[head..tail).
+	 * @return the new tail of the queue.
+	 */
+	private int spread(int[] queue, int head, int tail) {
+		while (head < tail) {
+			int cell = queue[head++];
+			for (int d = 0; d < Map.DIRECTIONS; d++) {
+				int m = distinctNeighbor(cell, d);
+				if (m >= 0 && _depth[m] < 0) {
+					_depth[m] = _depth[cell] + 1;
+					queue[tail++] = m;
+				}
+			}
+		}
+		return tail;
+	}
+}
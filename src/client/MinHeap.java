@@ -0,0 +1,74 @@
+package client;
+
+import java.util.Arrays;
+
+/**
+ * A binary min-heap of (long key, int value) pairs kept in primitive arrays (no boxing).
+ * Used as the priority queue of the A* and Dijkstra searches; it supports no decrease-key,
+ * so a search pushes a new entry instead and skips the stale ones when they are popped.
+ */
+class MinHeap {
+	private long[] _keys = new long[16];
+	private int[] _values = new int[16];
+	private int _size = 0;
+
+	/** Removes all entries (the arrays are kept for reuse). */
+	void clear() {_size = 0;}
+
+	/** @return true iff the heap has no entries. */
+	boolean isEmpty() {return _size == 0;}
+
+	/** @return the smallest key (the heap must not be empty). */
+	long minKey() {return _keys[0];}
+
+	/** Adds an entry. */
+	void push(long key, int value) {
+		if (_size == _keys.length) {
+			_keys = Arrays.copyOf(_keys, _size * 2);
+			_values = Arrays.copyOf(_values, _size * 2);
+		}
+		// Sift up
+		int i = _size++;
+		while (i > 0) {
+			int parent = (i - 1) >>> 1;
+			if (_keys[parent] <= key) {
+				break;
+			}
+			_keys[i] = _keys[parent];
+			_values[i] = _values[parent];
+			i = parent;
+		}
+		_keys[i] = key;
+		_values[i] = value;
+	}
+
+	/**
+	 * Removes the entry with the smallest key (the heap must not be empty).
+	 * @return the value of the removed entry.
+	 */
+	int pop() {
+		int top = _values[0];
+		long key = _keys[--_size];
+		int value = _values[_size];
+		// Sift the last entry down from the root
+		int i = 0;
+		while (true) {
+			int child = 2 * i + 1;
+			if (child >= _size) {
+				break;
+			}
+			if (child + 1 < _size && _keys[child + 1] < _keys[child]) {
+				child++;
+			}
+			if (_keys[child] >= key) {
+				break;
+			}
+			_keys[i] = _keys[child];
+			_values[i] = _values[child];
+			i = child;
+		}
+		_keys[i] = key;
+		_values[i] = value;
+		return top;
+	}
+}
@@ -0,0 +1,89 @@
+package client;
+
+/**
+ * An immutable Pixel2D holding both coordinates packed in a single long (x in the high 32 bits,
+ * y in the low 32 bits), with an integer equals and a hashCode that agrees with {@link Index2D}.
+ * Instances of small coordinates are shared: {@link #of(int, int)} returns cached pixels for
+ * 0 <= x,y < CACHE_SIZE, so the paths and neighbor lists of typical game boards allocate no pixels.
+ */
+public final class PackedPixel implements Pixel2D {
+	/** Pixels with both coordinates in [0, CACHE_SIZE) are cached by {@link #of(int, int)}. */
+	public static final int CACHE_SIZE = 128;
+	private static final PackedPixel[] CACHE = new PackedPixel[CACHE_SIZE * CACHE_SIZE];
+	static {
+		for (int y = 0; y < CACHE_SIZE; y++) {
+			for (int x = 0; x < CACHE_SIZE; x++) {
+				CACHE[y * CACHE_SIZE + x] = new PackedPixel(pack(x, y));
+			}
+		}
+	}
+
+	private final long _xy;
+
+	private PackedPixel(long xy) {_xy = xy;}
+
+	/**
+	 * @return the pixel (x,y), a shared instance if both coordinates are in [0, CACHE_SIZE).
+	 */
+	public static PackedPixel of(int x, int y) {
+		if (x >= 0 && y >= 0 && x < CACHE_SIZE && y < CACHE_SIZE) {
+			return CACHE[y * CACHE_SIZE + x];
+		}
+		return new PackedPixel(pack(x, y));
+	}
+
+	/**
+	 * @return the given coordinate as a PackedPixel (p itself if it already is one).
+	 */
+	public static PackedPixel of(Pixel2D p) {
+		return p instanceof PackedPixel ? (PackedPixel) p : of(p.getX(), p.getY());
+	}
+
+	/** @return (x,y) packed in a long, as held by a PackedPixel. */
+	public static long pack(int x, int y) {
+		return ((long) x << 32) | (y & 0xFFFFFFFFL);
+	}
+
+	/** @return the x coordinate of a packed (x,y). */
+	public static int unpackX(long xy) {return (int) (xy >> 32);}
+
+	/** @return the y coordinate of a packed (x,y). */
+	public static int unpackY(long xy) {return (int) xy;}
+
+	/** @return both coordinates packed in a long (see {@link #pack(int, int)}). */
+	public long packed() {return _xy;}
+
+	@Override
+	public int getX() {return unpackX(_xy);}
+
+	@Override
+	public int getY() {return unpackY(_xy);}
+
+	@Override
+	public double distance2D(Pixel2D t) {
+		double dx = getX() - t.getX(), dy = getY() - t.getY();
+		return Math.sqrt(dx * dx + dy * dy);
+	}
+
+	@Override
+	public String toString() {
+		return getX() + "," + getY();
+	}
+
+	@Override
+	public boolean equals(Object t) {
+		if (t instanceof PackedPixel) {
+			return _xy == ((PackedPixel) t)._xy;
+		}
+		if (t instanceof Pixel2D) {
+			Pixel2D p = (Pixel2D) t;
+			return getX() == p.getX() && getY() == p.getY();
+		}
+		return false;
+	}
+
+	@Override
+	public int hashCode() {
+		return 31 * getX() + getY();
+	}
+}
@@ -0,0 +1,166 @@
+package client;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Level-synchronous parallel BFS distances for very large maps.
+ * Every BFS level is split into chunks of the frontier that are expanded by the tasks of a
+ * ForkJoinPool. A cell is claimed by setting its bit in a shared bitset with compare-and-set, so
+ * exactly one task discovers it, writes its distance and lists it in the task's own output buffer.
+ * The buffers are concatenated (in chunk order) into the next frontier once the level is done.
+ *
+ * The distances do not depend on which task claims a cell (all the cells of a level get the same
+ * distance), so the result is exactly the result of the sequential BFS. Small levels are expanded
+ * by the calling thread only.
+ */
+class ParallelBfs {
+	/** A level is split into chunks of at least this many frontier cells. */
+	private static final int MIN_CHUNK = 1024;
+	/** Number of chunks per worker thread of the pool (for load balancing). */
+	private static final int CHUNKS_PER_THREAD = 4;
+
+	private final ForkJoinPool _pool;
+	/** Claimed cells (obstacles are claimed in advance), one bit per cell. */
+	private AtomicLongArray _claimed;
+	private int[] _frontier = new int[0];
+	private int[] _next = new int[0];
+	/** The output buffer of each chunk of the current level, and the number of cells in it. */
+	private int[][] _buffers = new int[0][];
+	private int[] _bufferSize = new int[0];
+
+	ParallelBfs() {this(ForkJoinPool.commonPool());}
+
+	ParallelBfs(ForkJoinPool pool) {_pool = pool;}
+
+	/**
+	 * Computes the shortest path distances (obstacle avoiding) from source to every cell.
+	 * @param map the map to search (it is only read, by several threads).
+	 * @param source the source cell index (not an obstacle).
+	 * @param obsColor the color representing obstacles.
+	 * @param dist the result array (of map.size() entries, all -1), indexed by cell.
+	 */
+	void allDistance(Map map, int source, int obsColor, int[] dist) {
+		int n = map.size();
+		long[] obstacles = new long[(n + 63) >>> 6];
+		for (int cell = 0; cell < n; cell++) {
+			if (map.valueAt(cell) == obsColor) {
+				obstacles[cell >>> 6] |= 1L << cell;
+			}
+		}
+		_claimed = new AtomicLongArray(obstacles);
+		if (_frontier.length < n) {
+			_frontier = new int[n];
+			_next = new int[n];
+		}
+		int maxChunks = Math.max(1, _pool.getParallelism() * CHUNKS_PER_THREAD);
+		if (_buffers.length < maxChunks) {
+			_buffers = new int[maxChunks][0];
+			_bufferSize = new int[maxChunks];
+		}
+
+		claim(source);
+		dist[source] = 0;
+		_frontier[0] = source;
+		int count = 1;
+		int level = 0;
+		while (count > 0) {
+			level++;
+			int chunks = Math.min(maxChunks, (count + MIN_CHUNK - 1) / MIN_CHUNK);
+			if (chunks <= 1) {
+				chunks = 1;
+				expand(map, 0, count, level, dist, 0);
+			}
+			else {
+				_pool.invoke(new Expand(map, count, chunks, 0, chunks, level, dist));
+			}
+			// The next frontier is the concatenation of the chunk buffers
+			int nextCount = 0;
+			for (int c = 0; c < chunks; c++) {
+				System.arraycopy(_buffers[c], 0, _next, nextCount, _bufferSize[c]);
+				nextCount += _bufferSize[c];
+			}
+			int[] tmp = _frontier;
+			_frontier = _next;
+			_next = tmp;
+			count = nextCount;
+		}
+		_claimed = null;
+	}
+
+	////////////////////// Private Methods ///////////////////////
+
+	/**
+	 * Expands the frontier cells from..to-1 by one level into the buffer of the given chunk.
+	 */
+	private void expand(Map map, int from, int to, int level, int[] dist, int chunk) {
+		int[] out = _buffers[chunk];
+		// Each cell has at most DIRECTIONS new neighbors
+		int capacity = (int) Math.min((long) (to - from) * Map.DIRECTIONS, map.size());
+		if (out.length < capacity) {
+			out = new int[capacity];
+			_buffers[chunk] = out;
+		}
+		int size = 0;
+		for (int i = from; i < to; i++) {
+			int current = _frontier[i];
+			for (int d = 0; d < Map.DIRECTIONS; d++) {
+				int n = map.neighbor(current, d);
+				if (n >= 0 && claim(n)) {
+					dist[n] = level;
+					out[size++] = n;
+				}
+			}
+		}
+		_bufferSize[chunk] = size;
+	}
+
+	/** @return true iff the cell was not claimed yet and the calling thread claimed it. */
+	private boolean claim(int cell) {
+		int word = cell >>> 6;
+		long bit = 1L << cell;
+		long old = _claimed.get(word);
+		while ((old & bit) == 0) {
+			long witness = _claimed.compareAndExchange(word, old, old | bit);
+			if (witness == old) {
+				return true;
+			}
+			old = witness;
+		}
+		return false;
+	}
+
+	/** Expands the chunks first..last-1 of a level, splitting them between the pool's threads. */
+	private final class Expand extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+
+		private final Map _map;
+		private final int _count, _chunks, _first, _last, _level;
+		private final int[] _dist;
+
+		Expand(Map map, int count, int chunks, int first, int last, int level, int[] dist) {
+			_map = map;
+			_count = count;
+			_chunks = chunks;
+			_first = first;
+			_last = last;
+			_level = level;
+			_dist = dist;
+		}
+
+		@Override
+		protected void compute() {
+			if (_last - _first == 1) {
+				int from = (int) ((long) _first * _count / _chunks);
+				int to = (int) ((long) _last * _count / _chunks);
+				expand(_map, from, to, _level, _dist, _first);
+			}
+			else {
+				int mid = (_first + _last) >>> 1;
+				invokeAll(new Expand(_map, _count, _chunks, _first, mid, _level, _dist),
+						new Expand(_map, _count, _chunks, mid, _last, _level, _dist));
+			}
+		}
+	}
+}
@@ -0,0 +1,16 @@
+package client;
+
+/**
+ * The search used by {@link Map#shortestPath(Pixel2D, Pixel2D, int)}.
+ * All strategies return a shortest path (the same length), they differ in how many cells they visit.
+ */
+public enum PathStrategy {
+	/** Plain BFS from the start point. */
+	BFS,
+	/** BFS from both end points, meeting in the middle. */
+	BIDIRECTIONAL,
+	/** A* search guided by the (cyclic aware) Manhattan distance to the end point. */
+	A_STAR,
+	/** BIDIRECTIONAL on large maps, BFS otherwise. */
+	AUTO
+}
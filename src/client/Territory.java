@@ -0,0 +1,199 @@
+package client;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntPredicate;
+
+/**
+ * A single-pass "who gets there first" map (a Voronoi partition by maze distance) for several moving
+ * agents, e.g. Pacman and the ghosts. One labeled multi-source BFS records, for every cell, the source
+ * that arrives first and the arrival of the first different source after it, so the safety margin of
+ * a cell ("Pacman is there 3 steps before any ghost") is known without one BFS per agent.
+ *
+ * Every cell keeps at most two labels - the best arrival and the best arrival of another source - so
+ * the search visits every cell at most twice. A source may get a head start of k steps (its arrival
+ * times are k smaller), e.g. for a ghost that moves faster or is known to be heading this way;
+ * sources with a larger head start enter the BFS earlier, so the cells are still settled in arrival order.
+ * The per-cell arrays grow to the largest map seen and are refilled by every run, so an instance is
+ * not safe for concurrent use.
+ */
+public class Territory {
+	/** Per cell: the first and second arrivals (by different sources), as source ordinal and time. */
+	private int[] _firstSource = new int[0];
+	private int[] _firstTime = new int[0];
+	private int[] _secondSource = new int[0];
+	private int[] _secondTime = new int[0];
+	/** Queue entries: cell * 2 + slot (0 - first arrival, 1 - second arrival). */
+	private int[] _queue = new int[0];
+	private Map _map;
+
+	public Territory() {}
+
+	/**
+	 * Computes the arrivals of the given sources at every cell.
+	 * @param map the map to search.
+	 * @param sources the sources (e.g. Pacman first, then the ghosts); sources outside the map or on an obstacle are ignored.
+	 * @param headStart if not null, headStart[i] is the head start (in steps) of the i-th source.
+	 * @param obsColor the color representing obstacles.
+	 */
+	public void run(Map map, List<? extends Pixel2D> sources, int[] headStart, int obsColor) {
+		begin(map);
+
+		// Seeds ordered by their start time (minus the head start)
+		int k = sources.size();
+		long[] seeds = new long[k];
+		int seedCount = 0;
+		for (int i = 0; i < k; i++) {
+			Pixel2D p = sources.get(i);
+			if (map.isInside(p) && map.getPixel(p) != obsColor) {
+				int start = headStart == null ? 0 : -headStart[i];
+				seeds[seedCount++] = ((long) start << 32) | i;
+			}
+		}
+		Arrays.sort(seeds, 0, seedCount);
+
+		int head = 0, tail = 0, nextSeed = 0;
+		while (nextSeed < seedCount || head < tail) {
+			// The time of the level to expand: the queued entries, or the next seed if none are queued
+			int time = head < tail ? timeOf(_queue[head]) : (int) (seeds[nextSeed] >> 32);
+			while (nextSeed < seedCount && (int) (seeds[nextSeed] >> 32) == time) {
+				Pixel2D p = sources.get((int) seeds[nextSeed]);
+				int cell = map.indexOf(p.getX(), p.getY());
+				int slot = arrive(cell, (int) seeds[nextSeed], time);
+				if (slot >= 0) {
+					_queue[tail++] = 2 * cell + slot;
+				}
+				nextSeed++;
+			}
+			int levelEnd = tail;
+			tail = expandLevel(head, levelEnd, tail, time, obsColor);
+			head = levelEnd;
+		}
+	}
+
+	/**
+	 * Computes the arrivals at every cell of the sources given by their values, e.g. every dot, without
+	 * collecting them first: every non-obstacle cell whose value passes isSource is a source, without
+	 * a head start, and the ordinal of a source (see {@link #owner(Pixel2D)}) is its cell index (y*width + x).
+	 * @param map the map to search.
+	 * @param isSource tests the value of a cell.
+	 * @param obsColor the color representing obstacles.
+	 */
+	public void run(Map map, IntPredicate isSource, int obsColor) {
+		begin(map);
+		int tail = 0;
+		for (int cell = 0, n = map.size(); cell < n; cell++) {
+			int v = map.valueAt(cell);
+			if (v != obsColor && isSource.test(v)) {
+				arrive(cell, cell, 0);
+				_queue[tail++] = 2 * cell;
+			}
+		}
+		for (int head = 0, time = 0; head < tail; time++) {
+			int levelEnd = tail;
+			tail = expandLevel(head, levelEnd, tail, time, obsColor);
+			head = levelEnd;
+		}
+	}
+
+	/**
+	 * @param p a coordinate of the last searched map.
+	 * @return the ordinal of the source that arrives first at p (ties go to the source that was expanded first),
+	 * -1 if no source reaches p.
+	 */
+	public int owner(Pixel2D p) {
+		int cell = cellOf(p);
+		return cell < 0 ? -1 : _firstSource[cell];
+	}
+
+	/**
+	 * @param p a coordinate of the last searched map.
+	 * @return the time (distance minus head start) the first source arrives at p, Integer.MAX_VALUE if none does.
+	 */
+	public int arrival(Pixel2D p) {
+		int cell = cellOf(p);
+		return cell < 0 || _firstSource[cell] < 0 ? Integer.MAX_VALUE : _firstTime[cell];
+	}
+
+	/**
+	 * @param p a coordinate of the last searched map.
+	 * @return how many steps the owner of p arrives before any other source (0 for a tie),
+	 * Integer.MAX_VALUE if no other source reaches p, -1 if no source reaches p.
+	 */
+	public int margin(Pixel2D p) {
+		int cell = cellOf(p);
+		if (cell < 0 || _firstSource[cell] < 0) {
+			return -1;
+		}
+		return _secondSource[cell] < 0 ? Integer.MAX_VALUE : _secondTime[cell] - _firstTime[cell];
+	}
+
+	////////////////////// Private Methods ///////////////////////
+
+	/** Starts a run over map: sizes the arrays for it and clears the arrivals. */
+	private void begin(Map map) {
+		_map = map;
+		int n = map.size();
+		if (_firstSource.length < n) {
+			_firstSource = new int[n];
+			_firstTime = new int[n];
+			_secondSource = new int[n];
+			_secondTime = new int[n];
+			_queue = new int[2 * n];
+		}
+		Arrays.fill(_firstSource, 0, n, -1);
+		Arrays.fill(_secondSource, 0, n, -1);
+	}
+
+	/**
+	 * Expands the queue entries [head, levelEnd), which arrived at the given time, queueing the
+	 * arrivals of their sources at the neighbors from tail on.
+	 * @return the new tail of the queue.
+	 */
+	private int expandLevel(int head, int levelEnd, int tail, int time, int obsColor) {
+		Map map = _map;
+		while (head < levelEnd) {
+			int entry = _queue[head++];
+			int cell = entry >> 1;
+			int source = (entry & 1) == 0 ? _firstSource[cell] : _secondSource[cell];
+			for (int d = 0; d < Map.DIRECTIONS; d++) {
+				int m = map.neighbor(cell, d);
+				if (m >= 0 && map.valueAt(m) != obsColor) {
+					int slot = arrive(m, source, time + 1);
+					if (slot >= 0) {
+						_queue[tail++] = 2 * m + slot;
+					}
+				}
+			}
+		}
+		return tail;
+	}
+
+	private int cellOf(Pixel2D p) {
+		return _map == null || !_map.isInside(p) ? -1 : _map.indexOf(p.getX(), p.getY());
+	}
+
+	private int timeOf(int entry) {
+		int cell = entry >> 1;
+		return (entry & 1) == 0 ? _firstTime[cell] : _secondTime[cell];
+	}
+
+	/**
+	 * Records the arrival of a source at a cell, unless the cell already has its first arrival from
+	 * this source or two earlier arrivals (arrivals come in non-decreasing time).
+	 * @return the slot the arrival was recorded in (0 or 1), -1 if it was not recorded.
+	 */
+	private int arrive(int cell, int source, int time) {
+		if (_firstSource[cell] < 0) {
+			_firstSource[cell] = source;
+			_firstTime[cell] = time;
+			return 0;
+		}
+		if (_firstSource[cell] == source || _secondSource[cell] >= 0) {
+			return -1;
+		}
+		_secondSource[cell] = source;
+		_secondTime[cell] = time;
+		return 1;
+	}
+}
@@ -257,8 +257,8 @@ public class Game implements PacmanGame {
             // All ghosts can be smart, but with probability based on level
             if (random.nextDouble() < smartProbability && map != null) {
                 // Smart move: use GameMap to find shortest path to Pacman
-                Pixel2D ghostPos = new Index2D(ghostX, ghostY);
-                Pixel2D pacmanPos = new Index2D(pacX, pacY);
+                Pixel2D ghostPos = Index2D.of(ghostX, ghostY);
+                Pixel2D pacmanPos = Index2D.of(pacX, pacY);
                 Pixel2D[] path = map.shortestPath(ghostPos, pacmanPos, GameState.WALL);
                 
                 if (path != null && path.length > 1) {
@@ -296,19 +296,10 @@ public class Game implements PacmanGame {
     
     /**
      * Creates a GameMap from the current game board for pathfinding.
+     * The map views the board in place (the board is not changed while the ghosts move).
      */
     private GameMap createGameMap() {
-        int[][] board = gameState.getBoard();
-        // Transpose board for GameMap: board[x][y] -> transposed[y][x]
-        int width = board.length;
-        int height = board[0].length;
-        int[][] transposed = new int[height][width];
-        for (int x = 0; x < width; x++) {
-            for (int y = 0; y < height; y++) {
-                transposed[y][x] = board[x][y];
-            }
-        }
-        GameMap map = new GameMap(transposed);
+        GameMap map = GameMap.ofColumns(gameState.boardView());
         map.setCyclic(gameState.isCyclicMode());
         return map;
     }
@@ -1,15 +1,18 @@
 package server;
 
-import java.util.ArrayList;
-import java.util.LinkedList;
-import java.util.Queue;
+import java.util.Arrays;
 
 /**
  * Game-specific map implementation for pathfinding.
  * Simplified version of Map class for use by the game server.
  */
 public class GameMap {
+    /** Neighbor offsets, in the order the BFS visits them. */
+    private static final int[][] DIRECTIONS = {{0, 1}, {0, -1}, {1, 0}, {-1, 0}};
+    
     private int[][] _map;
+    /** True if _map is indexed [x][y] (a view over the game board), false if it is indexed [y][x]. */
+    private boolean _columns = false;
     private boolean _cyclicFlag = true;
     
     public GameMap(int w, int h, int v) {
@@ -28,14 +31,26 @@ public class GameMap {
         }
     }
     
-    public int getWidth() { return _map[0].length; }
-    public int getHeight() { return _map.length; }
+    private GameMap(int[][] board, boolean columns) {
+        _map = board;
+        _columns = columns;
+    }
+    
+    /**
+     * Creates a map viewing the game board (indexed [x][y]) in place, without copying or transposing it.
+     */
+    public static GameMap ofColumns(int[][] board) {
+        return new GameMap(board, true);
+    }
+    
+    public int getWidth() { return _columns ? _map.length : _map[0].length; }
+    public int getHeight() { return _columns ? _map[0].length : _map.length; }
     
     public int getPixel(int x, int y) {
         if (x < 0 || y < 0 || x >= getWidth() || y >= getHeight()) {
             return -1;
         }
-        return _map[y][x];
+        return _columns ? _map[x][y] : _map[y][x];
     }
     
     public int getPixel(Pixel2D p) {
@@ -47,69 +62,71 @@ public class GameMap {
     
     /**
      * Compute shortest path between two points avoiding obstacles.
+     * A plain BFS over cell indices (y*width + x) with int arrays for the queue and the parent links.
+     * It stays one-sided on purpose: the ghosts follow the first step of this path, so the order
+     * in which the BFS visits neighbors decides which of several shortest paths a ghost takes.
+     * A bidirectional search would find a path of the same length but often a different one, and so
+     * would A*, whose tie-breaking prefers straight lines; on a board of a few hundred cells neither
+     * would save enough to be worth changing how the ghosts chase.
      */
     public Pixel2D[] shortestPath(Pixel2D p1, Pixel2D p2, int obsColor) {
-        if (getPixel(p1) == obsColor || getPixel(p2) == obsColor) {
+        if (getPixel(p1) == obsColor || getPixel(p2) == obsColor || !isInside(p1) || !isInside(p2)) {
             return null;
         }
         
         int width = getWidth();
         int height = getHeight();
-        boolean[][] visited = new boolean[height][width];
-        Pixel2D[][] parent = new Pixel2D[height][width];
-        
-        Queue<Pixel2D> queue = new LinkedList<>();
-        queue.offer(p1);
-        visited[p1.getY()][p1.getX()] = true;
+        int source = p1.getY() * width + p1.getX();
+        int target = p2.getY() * width + p2.getX();
+        // parent[c] is the cell c was reached from, -1 if c was not reached yet
+        int[] parent = new int[width * height];
+        Arrays.fill(parent, -1);
+        int[] queue = new int[width * height];
+        int head = 0, tail = 0;
+        queue[tail++] = source;
+        parent[source] = source;
         
-        while (!queue.isEmpty()) {
-            Pixel2D current = queue.poll();
+        while (head < tail) {
+            int current = queue[head++];
             
-            if (current.getX() == p2.getX() && current.getY() == p2.getY()) {
-                // Reconstruct path
-                ArrayList<Pixel2D> path = new ArrayList<>();
-                Pixel2D node = current;
-                while (node != null) {
-                    path.add(0, node);
-                    node = parent[node.getY()][node.getX()];
+            if (current == target) {
+                // Reconstruct path, back to front
+                int length = 1;
+                for (int c = current; c != source; c = parent[c]) {
+                    length++;
                 }
-                return path.toArray(new Pixel2D[0]);
+                Pixel2D[] path = new Pixel2D[length];
+                for (int c = current, i = length - 1; i >= 0; c = parent[c], i--) {
+                    path[i] = Index2D.of(c % width, c / width);
+                }
+                return path;
             }
             
-            for (Pixel2D neighbor : getNeighbors(current)) {
-                int nx = neighbor.getX();
-                int ny = neighbor.getY();
+            int x = current % width;
+            int y = current / width;
+            for (int[] d : DIRECTIONS) {
+                int nx = x + d[0];
+                int ny = y + d[1];
                 
-                if (!visited[ny][nx] && getPixel(nx, ny) != obsColor) {
-                    visited[ny][nx] = true;
-                    parent[ny][nx] = current;
-                    queue.offer(neighbor);
+                if (_cyclicFlag) {
+                    if (nx < 0) nx = width - 1;
+                    else if (nx >= width) nx = 0;
+                    if (ny < 0) ny = height - 1;
+                    else if (ny >= height) ny = 0;
+                } else if (nx < 0 || nx >= width || ny < 0 || ny >= height) {
+                    continue;
+                }
+                int next = ny * width + nx;
+                if (parent[next] < 0 && getPixel(nx, ny) != obsColor) {
+                    parent[next] = current;
+                    queue[tail++] = next;
                 }
             }
         }
         return null;
     }
     
-    private ArrayList<Pixel2D> getNeighbors(Pixel2D p) {
-        ArrayList<Pixel2D> neighbors = new ArrayList<>();
-        int[][] dirs = {{0, 1}, {0, -1}, {1, 0}, {-1, 0}};
-        
-        for (int[] d : dirs) {
-            int nx = p.getX() + d[0];
-            int ny = p.getY() + d[1];
-            
-            if (_cyclicFlag) {
-                if (nx < 0) nx = getWidth() - 1;
-                else if (nx >= getWidth()) nx = 0;
-                if (ny < 0) ny = getHeight() - 1;
-                else if (ny >= getHeight()) ny = 0;
-                neighbors.add(new Index2D(nx, ny));
-            } else {
-                if (nx >= 0 && nx < getWidth() && ny >= 0 && ny < getHeight()) {
-                    neighbors.add(new Index2D(nx, ny));
-                }
-            }
-        }
-        return neighbors;
+    private boolean isInside(Pixel2D p) {
+        return p.getX() >= 0 && p.getY() >= 0 && p.getX() < getWidth() && p.getY() < getHeight();
     }
 }
@@ -71,6 +71,13 @@ public class GameState {
         return copy;
     }
     
+    /**
+     * The board itself (not a copy), indexed [x][y], for read-only use inside the server.
+     */
+    int[][] boardView() {
+        return board;
+    }
+    
     public int getWidth() {
         return board.length; // Width is number of rows (22)
     }
@@ -104,6 +111,14 @@ public class GameState {
         this.board = board;
     }
     
+    /**
+     * Replaces the board with the maze of a maze file, taking its cyclic flag as well.
+     */
+    public void setBoard(MazeFile maze) {
+        this.board = maze.toBoard();
+        this.cyclicMode = maze.isCyclic();
+    }
+    
     public int getScore() {
         return score;
     }
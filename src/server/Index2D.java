@@ -4,12 +4,33 @@ package server;
  * Implementation of Pixel2D for 2D coordinates.
  */
 public class Index2D implements Pixel2D {
-    private int _x, _y;
+    /** Pixels with both coordinates in [0, CACHE_SIZE) are shared by {@link #of(int, int)}. */
+    private static final int CACHE_SIZE = 128;
+    private static final Index2D[] CACHE = new Index2D[CACHE_SIZE * CACHE_SIZE];
+    static {
+        for (int y = 0; y < CACHE_SIZE; y++) {
+            for (int x = 0; x < CACHE_SIZE; x++) {
+                CACHE[y * CACHE_SIZE + x] = new Index2D(x, y);
+            }
+        }
+    }
+    
+    private final int _x, _y;
     
     public Index2D() { this(0, 0); }
     public Index2D(int x, int y) { _x = x; _y = y; }
     public Index2D(Pixel2D t) { this(t.getX(), t.getY()); }
     
+    /**
+     * @return the pixel (x,y), a shared (immutable) instance if both coordinates are in [0, 128).
+     */
+    public static Index2D of(int x, int y) {
+        if (x >= 0 && y >= 0 && x < CACHE_SIZE && y < CACHE_SIZE) {
+            return CACHE[y * CACHE_SIZE + x];
+        }
+        return new Index2D(x, y);
+    }
+    
     @Override
     public int getX() { return _x; }
     
@@ -18,9 +39,9 @@ public class Index2D implements Pixel2D {
     
     @Override
     public double distance2D(Pixel2D t) {
-        double xDiff = Math.pow(this._x - t.getX(), 2);
-        double yDiff = Math.pow(this._y - t.getY(), 2);
-        return Math.sqrt(xDiff + yDiff);
+        double xDiff = this._x - t.getX();
+        double yDiff = this._y - t.getY();
+        return Math.sqrt(xDiff * xDiff + yDiff * yDiff);
     }
     
     @Override
@@ -30,8 +51,11 @@ public class Index2D implements Pixel2D {
     public boolean equals(Object t) {
         if (t instanceof Pixel2D) {
             Pixel2D p = (Pixel2D) t;
-            return this.distance2D(p) == 0;
+            return this._x == p.getX() && this._y == p.getY();
         }
         return false;
     }
+    
+    @Override
+    public int hashCode() { return 31 * _x + _y; }
 }
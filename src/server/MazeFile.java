@@ -0,0 +1,260 @@
+package server;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.function.IntBinaryOperator;
+
+/**
+ * A maze in a compact binary file, opened by memory-mapping the file. Opening checks the header and
+ * makes one sequential pass over the cells (unless the palette is full, when every byte is valid), so
+ * a corrupt file is rejected up front and a cell read is a plain palette lookup.
+ *
+ * File layout (big-endian):
+ * <pre>
+ *   int    magic 'MAZE'
+ *   byte   version (1)
+ *   byte   flags (bit 0: cyclic)
+ *   byte   cell encoding (1: one byte per cell, indexing the palette)
+ *   byte   reserved (0)
+ *   int    width, height
+ *   int    palette size (1..256), then the palette values (distinct ints)
+ *   byte[] the cells in row-major order: byte y*width + x is the palette index of (x,y)
+ * </pre>
+ * The mapping is private (copy-on-write): cells changed in memory never reach the file. A file
+ * without write permission is mapped read-only, and its cells cannot be changed in memory either.
+ */
+public class MazeFile {
+    public static final int MAGIC = 0x4D415A45;
+    public static final int VERSION = 1;
+    /** Cell encoding: one byte per cell, an index into the palette. */
+    public static final int ENCODING_BYTE_PALETTE = 1;
+    /** The largest number of distinct cell values of a maze file. */
+    public static final int MAX_PALETTE = 256;
+    private static final int FLAG_CYCLIC = 1;
+    /** Size of the fixed part of the header (up to the palette values). */
+    private static final int HEADER_SIZE = 20;
+
+    private final int width;
+    private final int height;
+    private final boolean cyclic;
+    private final int[] palette;
+    private final ByteBuffer cells;
+
+    private MazeFile(int width, int height, boolean cyclic, int[] palette, ByteBuffer cells) {
+        this.width = width;
+        this.height = height;
+        this.cyclic = cyclic;
+        this.palette = palette;
+        this.cells = cells;
+    }
+
+    /**
+     * Opens a maze file by memory-mapping it.
+     * @param file the maze file.
+     * @return the maze, whose cells are read from the mapping on demand.
+     * @throws IOException if the file cannot be read or is not a valid maze file (including a cell byte that is not a palette index).
+     */
+    public static MazeFile open(Path file) throws IOException {
+        // A private (copy-on-write) mapping needs a writable channel, though the file is never written
+        boolean writable = Files.isWritable(file);
+        try (FileChannel channel = writable ? FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)
+                : FileChannel.open(file, StandardOpenOption.READ)) {
+            long length = channel.size();
+            if (length < HEADER_SIZE) {
+                throw new IOException("Not a maze file (too short): " + file);
+            }
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            readFully(channel, header, 0);
+            header.flip();
+            if (header.getInt() != MAGIC) {
+                throw new IOException("Not a maze file (bad magic): " + file);
+            }
+            int version = header.get();
+            int flags = header.get();
+            int encoding = header.get();
+            header.get();
+            if (version != VERSION || encoding != ENCODING_BYTE_PALETTE) {
+                throw new IOException("Unsupported maze file version " + version + " / encoding " + encoding + ": " + file);
+            }
+            int width = header.getInt();
+            int height = header.getInt();
+            int paletteSize = header.getInt();
+            if (width <= 0 || height <= 0 || (long) width * height > Integer.MAX_VALUE
+                    || paletteSize <= 0 || paletteSize > MAX_PALETTE) {
+                throw new IOException("Bad maze file header (" + width + "x" + height + ", palette " + paletteSize + "): " + file);
+            }
+            long bodyStart = HEADER_SIZE + 4L * paletteSize;
+            if (length != bodyStart + (long) width * height) {
+                throw new IOException("Maze file size " + length + " does not match its header: " + file);
+            }
+            ByteBuffer values = ByteBuffer.allocate(4 * paletteSize);
+            readFully(channel, values, HEADER_SIZE);
+            values.flip();
+            int[] palette = new int[paletteSize];
+            for (int i = 0; i < paletteSize; i++) {
+                palette[i] = values.getInt();
+                for (int j = 0; j < i; j++) {
+                    if (palette[j] == palette[i]) {
+                        throw new IOException("Maze file palette repeats the value " + palette[i] + ": " + file);
+                    }
+                }
+            }
+            // The mapping stays valid after the channel is closed
+            ByteBuffer cells = channel.map(writable ? FileChannel.MapMode.PRIVATE : FileChannel.MapMode.READ_ONLY,
+                    bodyStart, (long) width * height);
+            checkCells(file, cells, width, paletteSize);
+            return new MazeFile(width, height, (flags & FLAG_CYCLIC) != 0, palette, cells);
+        }
+    }
+
+    /** Checks that every cell byte is a palette index, reading the cells in bulk chunks. */
+    private static void checkCells(Path file, ByteBuffer cells, int width, int paletteSize) throws IOException {
+        if (paletteSize == MAX_PALETTE) {
+            return;
+        }
+        ByteBuffer body = cells.duplicate();
+        byte[] chunk = new byte[Math.min(body.remaining(), 1 << 16)];
+        for (int start = 0; body.hasRemaining(); start += chunk.length) {
+            int n = Math.min(chunk.length, body.remaining());
+            body.get(chunk, 0, n);
+            for (int i = 0; i < n; i++) {
+                if ((chunk[i] & 0xFF) >= paletteSize) {
+                    int cell = start + i;
+                    throw new IOException("Corrupt maze file: cell (" + cell % width + "," + cell / width
+                            + ") has palette index " + (chunk[i] & 0xFF) + " of " + paletteSize + ": " + file);
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes a maze file.
+     * @param file the file to (over)write.
+     * @param width the maze width.
+     * @param height the maze height.
+     * @param cyclic the cyclic flag.
+     * @param cellAt gives the value of the cell (x,y).
+     * @throws IOException if the file cannot be written.
+     * @throws IllegalArgumentException if the maze has more than MAX_PALETTE distinct values.
+     */
+    public static void write(Path file, int width, int height, boolean cyclic, IntBinaryOperator cellAt) throws IOException {
+        if (width <= 0 || height <= 0 || (long) width * height > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Bad maze dimensions: " + width + "x" + height);
+        }
+        // First pass: the palette
+        int[] palette = new int[MAX_PALETTE];
+        int paletteSize = 0;
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                int v = cellAt.applyAsInt(x, y);
+                if (indexOf(palette, paletteSize, v) < 0) {
+                    if (paletteSize == MAX_PALETTE) {
+                        throw new IllegalArgumentException("A maze file holds at most " + MAX_PALETTE + " distinct values");
+                    }
+                    palette[paletteSize++] = v;
+                }
+            }
+        }
+        // Second pass: header, palette and cells
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeByte(VERSION);
+            out.writeByte(cyclic ? FLAG_CYCLIC : 0);
+            out.writeByte(ENCODING_BYTE_PALETTE);
+            out.writeByte(0);
+            out.writeInt(width);
+            out.writeInt(height);
+            out.writeInt(paletteSize);
+            for (int i = 0; i < paletteSize; i++) {
+                out.writeInt(palette[i]);
+            }
+            for (int y = 0; y < height; y++) {
+                for (int x = 0; x < width; x++) {
+                    out.writeByte(indexOf(palette, paletteSize, cellAt.applyAsInt(x, y)));
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes a game board (indexed [x][y], like GameState) to a maze file.
+     */
+    public static void write(Path file, int[][] board, boolean cyclic) throws IOException {
+        write(file, board.length, board[0].length, cyclic, (x, y) -> board[x][y]);
+    }
+
+    public int getWidth() { return width; }
+    public int getHeight() { return height; }
+    public boolean isCyclic() { return cyclic; }
+
+    /**
+     * @return the value of the cell (x,y), read from the mapping.
+     */
+    public int getCell(int x, int y) {
+        if (x < 0 || y < 0 || x >= width || y >= height) {
+            throw new IndexOutOfBoundsException("(" + x + "," + y + ") is outside the " + width + "x" + height + " maze");
+        }
+        return valueAt(y * width + x);
+    }
+
+    /**
+     * Decodes the maze into a game board (indexed [x][y]), e.g. for {@link GameState#setBoard(int[][])}.
+     * The board is a plain array, so this reads every cell.
+     */
+    public int[][] toBoard() {
+        int[][] board = new int[width][height];
+        for (int y = 0; y < height; y++) {
+            int row = y * width;
+            for (int x = 0; x < width; x++) {
+                board[x][y] = valueAt(row + x);
+            }
+        }
+        return board;
+    }
+
+    /**
+     * @return the palette: the cell values, in the order the cell bytes index them.
+     */
+    public int[] getPalette() {
+        return Arrays.copyOf(palette, palette.length);
+    }
+
+    /**
+     * @return the mapped cells (one palette index per cell, row-major), sharing the mapping:
+     * writes change the cells of this maze in memory, never the file (the buffer is read-only if the file is).
+     */
+    public ByteBuffer getCells() {
+        return cells.duplicate();
+    }
+
+    /** Decodes a cell (open checked that its byte is a palette index). */
+    private int valueAt(int cell) {
+        return palette[cells.get(cell) & 0xFF];
+    }
+
+    private static int indexOf(int[] palette, int size, int v) {
+        for (int i = 0; i < size; i++) {
+            if (palette[i] == v) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int n = channel.read(buffer, position);
+            if (n < 0) {
+                throw new IOException("Unexpected end of maze file");
+            }
+            position += n;
+        }
+    }
+}
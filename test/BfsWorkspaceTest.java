@@ -0,0 +1,121 @@
+import client.BfsWorkspace;
+import client.Index2D;
+import client.Map;
+import client.Map2D;
+import client.Pixel2D;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Test class for BfsWorkspace using JUnit
+ */
+public class BfsWorkspaceTest {
+    
+    @Test
+    public void testRunDistances() {
+        Map m = new Map(4, 4, 0);
+        m.setCyclic(false);
+        m.setPixel(1, 0, 1);
+        
+        BfsWorkspace ws = new BfsWorkspace();
+        int reached = ws.run(m, new Index2D(0, 0), 1);
+        assertEquals("All 15 non-obstacle cells should be reached", 15, reached);
+        assertEquals("Start distance should be 0", 0, ws.distance(new Index2D(0, 0)));
+        assertEquals("Obstacle should have distance -1", -1, ws.distance(new Index2D(1, 0)));
+        assertEquals("(2,0) must go around the obstacle", 4, ws.distance(new Index2D(2, 0)));
+        assertEquals("Outside pixel should have distance -1", -1, ws.distance(new Index2D(9, 9)));
+    }
+    
+    @Test
+    public void testRunFromObstacle() {
+        Map m = new Map(3, 3, 1);
+        BfsWorkspace ws = new BfsWorkspace();
+        assertEquals("Nothing is reachable from an obstacle", 0, ws.run(m, new Index2D(1, 1), 1));
+        assertEquals("Start should not be marked", -1, ws.distance(new Index2D(1, 1)));
+    }
+    
+    @Test
+    public void testReuseAcrossSearches() {
+        Map m = new Map(5, 5, 0);
+        m.setCyclic(false);
+        BfsWorkspace ws = new BfsWorkspace();
+        
+        ws.run(m, new Index2D(0, 0), 1);
+        assertEquals("(4,4) should be 8 steps from (0,0)", 8, ws.distance(new Index2D(4, 4)));
+        
+        // Walling off a cell must not leave a stale distance from the previous search
+        m.setPixel(4, 4, 1);
+        ws.run(m, new Index2D(4, 0), 1);
+        assertEquals("(4,4) is now an obstacle", -1, ws.distance(new Index2D(4, 4)));
+        assertEquals("(0,0) should be 4 steps from (4,0)", 4, ws.distance(new Index2D(0, 0)));
+        
+        // A larger map grows the workspace
+        Map big = new Map(10, 10, 0);
+        big.setCyclic(false);
+        ws.run(big, new Index2D(9, 9), 1);
+        assertEquals("(0,0) should be 18 steps from (9,9)", 18, ws.distance(new Index2D(0, 0)));
+    }
+    
+    @Test
+    public void testMapAlgorithmsWithWorkspace() {
+        Map m = new Map(6, 4, 0);
+        m.setCyclic(false);
+        BfsWorkspace ws = new BfsWorkspace();
+        
+        Map2D expected = m.allDistance(new Index2D(2, 1), 1);
+        Map2D actual = m.allDistance(new Index2D(2, 1), 1, ws);
+        assertArrayEquals("Workspace and plain allDistance should agree", expected.getMap(), actual.getMap());
+        
+        Pixel2D[] path = m.shortestPath(new Index2D(0, 0), new Index2D(5, 3), 1, ws);
+        assertNotNull("Path should exist", path);
+        assertEquals("Path should have 9 pixels", 9, path.length);
+        path = m.shortestPath(new Index2D(5, 3), new Index2D(0, 0), 1, ws);
+        assertEquals("Reverse path should have 9 pixels", 9, path.length);
+    }
+    
+    @Test
+    public void testTraverse() {
+        Map m = new Map(9, 7, 0);
+        m.setCyclic(false);
+        m.setPixel(3, 3, 1);
+        Index2D start = new Index2D(4, 3);
+        Map2D expected = m.allDistance(start, 1);
+        BfsWorkspace ws = new BfsWorkspace();
+        
+        // Every reachable cell once, in non-decreasing distance, with its BFS distance
+        int[] last = {0};
+        int[] seen = {0};
+        int visited = ws.traverse(m, start, 1, Integer.MAX_VALUE, (cell, dist) -> {
+            assertEquals("Distance of cell " + cell, expected.getPixel(cell % 9, cell / 9), dist);
+            assertTrue("Cells should come in BFS order", dist >= last[0]);
+            last[0] = dist;
+            seen[0]++;
+            return true;
+        });
+        assertEquals("All 62 non-obstacle cells should be visited", 62, visited);
+        assertEquals(visited, seen[0]);
+        
+        // The radius bounds the search
+        int[] farthest = {0};
+        visited = ws.traverse(m, start, 1, 2, (cell, dist) -> {
+            farthest[0] = Math.max(farthest[0], dist);
+            return true;
+        });
+        assertEquals("No cell beyond the radius", 2, farthest[0]);
+        assertEquals("Cells within distance 2 of (4,3)", 11, visited);
+        assertEquals("Cells beyond the radius are not reached", -1, ws.distance(new Index2D(0, 0)));
+        
+        // The visitor stops the search
+        int[] stopAt = {-1};
+        visited = m.traverse(start, 1, Integer.MAX_VALUE, (cell, dist) -> {
+            if (dist == 3) {
+                stopAt[0] = cell;
+                return false;
+            }
+            return true;
+        });
+        assertEquals("The first cell at distance 3 ends the search", 3, expected.getPixel(stopAt[0] % 9, stopAt[0] / 9));
+        assertTrue("Stopping early visits fewer cells", visited < 62);
+        assertEquals("Nothing is visited from an obstacle", 0, ws.traverse(m, new Index2D(3, 3), 1, 5, (cell, dist) -> true));
+    }
+}
@@ -0,0 +1,93 @@
+import client.CompactGraph;
+import client.Index2D;
+import client.Map;
+import client.Pixel2D;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+/**
+ * Test class for CompactGraph using JUnit
+ */
+public class CompactGraphTest {
+    
+    @Test
+    public void testStructure() {
+        Map m = new Map(4, 3, 1);
+        m.setCyclic(false);
+        for (int x = 0; x < 4; x++) {
+            m.setPixel(x, 1, 0);
+        }
+        m.setPixel(2, 0, 0);
+        CompactGraph g = new CompactGraph(m, 1);
+        assertEquals("Only the 5 walkable cells are vertices", 5, g.vertexCount());
+        assertEquals("4 edges, each in both directions", 8, g.arcCount());
+        assertEquals("Walls are not vertices", -1, g.vertexOf(0, 0));
+        assertEquals("Outside the map", -1, g.vertexOf(new Index2D(4, 1)));
+        int junction = g.vertexOf(2, 1);
+        assertEquals("(2,1) has 3 walkable neighbors", 3, g.degree(junction));
+        assertEquals(2, g.getX(junction));
+        assertEquals(1, g.getY(junction));
+        for (int i = 0; i < g.degree(junction); i++) {
+            int v = g.neighbor(junction, i);
+            assertEquals("Neighbors are one step away", 1, Math.abs(g.getX(v) - 2) + Math.abs(g.getY(v) - 1));
+        }
+        assertEquals("(0,1) is a dead end", 1, g.degree(g.vertexOf(0, 1)));
+        
+        // Cyclic edges are included
+        m.setCyclic(true);
+        CompactGraph cyclic = new CompactGraph(m, 1);
+        assertEquals("(0,1) and (3,1) are joined across the border", 2, cyclic.degree(cyclic.vertexOf(0, 1)));
+        assertEquals(10, cyclic.arcCount());
+    }
+    
+    @Test
+    public void testSearchesMatchMap() {
+        Random rnd = new Random(22);
+        for (int t = 0; t < 20; t++) {
+            int w = 8 + rnd.nextInt(6), h = 6 + rnd.nextInt(5);
+            Map m = MazeFixtures.randomMaze(rnd, w, h, t % 2 == 0, w * h / 3);
+            CompactGraph g = new CompactGraph(m, 1);
+            Index2D s = new Index2D(rnd.nextInt(w), rnd.nextInt(h));
+            Index2D e = new Index2D(rnd.nextInt(w), rnd.nextInt(h));
+            int[] expected = toArray(m.allDistance(s, 1).getMap(), w, h);
+            assertArrayEquals("Distances from " + s, expected, toArray(g.allDistance(s).getMap(), w, h));
+            
+            Pixel2D[] path = g.shortestPath(s, e);
+            Pixel2D[] mapPath = m.shortestPath(s, e, 1);
+            assertEquals("Path exists in both or neither", mapPath == null, path == null);
+            if (path != null) {
+                assertEquals("Paths have the same length", mapPath.length, path.length);
+                assertEquals(s, path[0]);
+                assertEquals(e, path[path.length - 1]);
+                for (Pixel2D p : path) {
+                    assertTrue("Paths only visit walkable cells", g.vertexOf(p) >= 0);
+                }
+            }
+            
+            // Streaming with a radius visits exactly the cells within it
+            int radius = 3;
+            int[] within = {0};
+            for (int d : expected) {
+                if (d >= 0 && d <= radius) within[0]++;
+            }
+            int visited = g.traverse(s, radius, (cell, dist) -> {
+                assertEquals("Streamed distance", expected[cell], dist);
+                return true;
+            });
+            assertEquals("Cells within distance " + radius, within[0], visited);
+        }
+    }
+    
+    /** Flattens a [y][x] map to cell order y*w + x */
+    private static int[] toArray(int[][] map, int w, int h) {
+        int[] ans = new int[w * h];
+        for (int x = 0; x < w; x++) {
+            for (int y = 0; y < h; y++) {
+                ans[y * w + x] = map[y][x];
+            }
+        }
+        return ans;
+    }
+}
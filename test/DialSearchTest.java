@@ -0,0 +1,111 @@
+import client.DialSearch;
+import client.Index2D;
+import client.Map;
+import client.Map2D;
+import client.Pixel2D;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+/**
+ * Test class for DialSearch using JUnit
+ */
+public class DialSearchTest {
+    
+    /** Reference costs by Bellman-Ford style relaxation until nothing changes. */
+    private static int[] referenceCosts(Map m, int[] cost, int source) {
+        int w = m.getWidth(), h = m.getHeight();
+        int[] dist = new int[w * h];
+        java.util.Arrays.fill(dist, Integer.MAX_VALUE);
+        dist[source] = 0;
+        int[][] moves = {{0, 1}, {0, -1}, {1, 0}, {-1, 0}};
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (int c = 0; c < w * h; c++) {
+                if (dist[c] == Integer.MAX_VALUE) continue;
+                for (int[] mv : moves) {
+                    int x = c % w + mv[0], y = c / w + mv[1];
+                    if (m.isCyclic()) {
+                        x = (x + w) % w;
+                        y = (y + h) % h;
+                    } else if (x < 0 || y < 0 || x >= w || y >= h) {
+                        continue;
+                    }
+                    int n = y * w + x;
+                    if (cost[n] >= 0 && dist[c] + cost[n] < dist[n]) {
+                        dist[n] = dist[c] + cost[n];
+                        changed = true;
+                    }
+                }
+            }
+        }
+        return dist;
+    }
+    
+    @Test
+    public void testCostsMatchReference() {
+        Random rnd = new Random(4);
+        DialSearch dial = new DialSearch();
+        for (int t = 0; t < 20; t++) {
+            int w = 8 + rnd.nextInt(6), h = 6 + rnd.nextInt(5);
+            Map m = new Map(w, h, 0);
+            m.setCyclic(t % 2 == 0);
+            int[] cost = new int[w * h];
+            for (int i = 0; i < cost.length; i++) {
+                // Some walls, some free cells, mostly small costs
+                cost[i] = rnd.nextInt(10) == 0 ? -1 : rnd.nextInt(6);
+            }
+            Index2D s = new Index2D(rnd.nextInt(w), rnd.nextInt(h));
+            cost[s.getY() * w + s.getX()] = 1;
+            dial.run(m, s, cost);
+            int[] expected = referenceCosts(m, cost, s.getY() * w + s.getX());
+            Map2D field = dial.distanceMap();
+            for (int x = 0; x < w; x++) {
+                for (int y = 0; y < h; y++) {
+                    int e = expected[y * w + x];
+                    Index2D p = new Index2D(x, y);
+                    assertEquals("Cost should match the reference", e == Integer.MAX_VALUE ? -1 : e, dial.distance(p));
+                    assertEquals("Distance map should match distance()", dial.distance(p), field.getPixel(x, y));
+                    Pixel2D first = dial.firstStep(p);
+                    if (e == Integer.MAX_VALUE || p.equals(s)) {
+                        assertNull("No first step to the source or an unreached cell", first);
+                    } else {
+                        // The first step is a neighbor of the source on a cheapest path
+                        int fc = first.getY() * w + first.getX();
+                        int[] fromFirst = referenceCosts(m, cost, fc);
+                        assertEquals("First step should start a cheapest path",
+                                e, cost[fc] + fromFirst[y * w + x]);
+                    }
+                }
+            }
+        }
+    }
+    
+    @Test
+    public void testAvoidsExpensiveCells() {
+        // A straight corridor through an expensive cell versus a detour of cheap cells
+        Map m = new Map(5, 3, 0);
+        m.setCyclic(false);
+        int[] cost = new int[15];
+        java.util.Arrays.fill(cost, 1);
+        cost[1 * 5 + 2] = 10;
+        DialSearch dial = new DialSearch();
+        assertEquals("Every cell is reachable", 15, dial.run(m, new Index2D(0, 1), cost));
+        assertEquals("The detour costs 6", 6, dial.distance(new Index2D(4, 1)));
+        assertEquals("Next to the start", new Index2D(1, 1), dial.firstStep(new Index2D(1, 1)));
+    }
+    
+    @Test
+    public void testInvalidInput() {
+        Map m = new Map(3, 3, 0);
+        DialSearch dial = new DialSearch();
+        assertThrows(IllegalArgumentException.class, () -> dial.run(m, new Index2D(0, 0), new int[4]));
+        int[] cost = new int[9];
+        cost[4] = DialSearch.MAX_COST + 1;
+        assertThrows(IllegalArgumentException.class, () -> dial.run(m, new Index2D(0, 0), cost));
+        assertEquals("Outside the map reaches nothing", 0, dial.run(m, new Index2D(5, 5), new int[9]));
+        assertEquals(-1, dial.distance(new Index2D(0, 0)));
+    }
+}
@@ -0,0 +1,78 @@
+import client.DistanceFieldCache;
+import client.Index2D;
+import client.Map;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Test class for DistanceFieldCache using JUnit
+ */
+public class DistanceFieldCacheTest {
+    
+    private static final int WALL = 1, DOT = 2, EMPTY = 0;
+    
+    @Test
+    public void testHitsAndMisses() {
+        Map m = new Map(10, 10, DOT);
+        DistanceFieldCache cache = new DistanceFieldCache(m, 4);
+        Index2D a = new Index2D(1, 1);
+        assertEquals(4, cache.distance(a, new Index2D(3, 3), WALL));
+        assertEquals(2, cache.distance(a, new Index2D(2, 2), WALL));
+        assertEquals("The second query from the same source is a hit", 1, cache.hits());
+        assertEquals(1, cache.misses());
+        assertArrayEquals("Cached fields should equal allDistance",
+                m.allDistance(a, WALL).getMap(), cache.allDistance(a, WALL).getMap());
+        assertEquals(-1, cache.distance(a, new Index2D(30, 3), WALL));
+        assertEquals(-1, cache.distance(new Index2D(-1, 3), a, WALL));
+    }
+    
+    @Test
+    public void testEatingDotsKeepsFields() {
+        Map m = new Map(10, 10, DOT);
+        DistanceFieldCache cache = new DistanceFieldCache(m, 4);
+        Index2D a = new Index2D(0, 0);
+        cache.distance(a, a, WALL);
+        m.setPixel(3, 3, EMPTY);
+        m.fill(new Index2D(5, 5), EMPTY);
+        cache.distance(a, a, WALL);
+        assertEquals("Changes between non-obstacle colors keep the field", 1, cache.hits());
+    }
+    
+    @Test
+    public void testNewWallsInvalidate() {
+        Map m = new Map(10, 10, EMPTY);
+        m.setCyclic(false);
+        DistanceFieldCache cache = new DistanceFieldCache(m, 4);
+        Index2D a = new Index2D(0, 0), b = new Index2D(9, 0);
+        assertEquals(9, cache.distance(a, b, WALL));
+        for (int y = 0; y < 9; y++) {
+            m.setPixel(5, y, WALL);
+        }
+        assertEquals("A new wall should be seen", 27, cache.distance(a, b, WALL));
+        m.setPixel(5, 4, EMPTY);
+        assertEquals("A removed wall should be seen", 17, cache.distance(a, b, WALL));
+        m.setCyclic(true);
+        assertEquals("The cyclic flag should be seen", 1, cache.distance(a, b, WALL));
+        m.init(5, 5, EMPTY);
+        assertEquals("A new size should be seen", 1, cache.distance(a, new Index2D(4, 0), WALL));
+        assertEquals(0, cache.hits());
+    }
+    
+    @Test
+    public void testLruEviction() {
+        Map m = new Map(6, 6, EMPTY);
+        DistanceFieldCache cache = new DistanceFieldCache(m, 2);
+        Index2D a = new Index2D(0, 0), b = new Index2D(1, 0), c = new Index2D(2, 0);
+        cache.distance(a, a, WALL);
+        cache.distance(b, a, WALL);
+        cache.distance(a, a, WALL);
+        cache.distance(c, a, WALL);
+        assertEquals("The least recently used field is evicted", 1, cache.evictions());
+        assertEquals(2, cache.size());
+        cache.distance(a, a, WALL);
+        assertEquals("The recently used field survives", 2, cache.hits());
+        cache.distance(b, a, WALL);
+        assertEquals(4, cache.misses());
+        assertThrows(IllegalArgumentException.class, () -> new DistanceFieldCache(m, 0));
+    }
+}
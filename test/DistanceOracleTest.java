@@ -0,0 +1,93 @@
+import client.DistanceOracle;
+import client.Index2D;
+import client.Map;
+import client.Map2D;
+import client.Pixel2D;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+/**
+ * Test class for DistanceOracle using JUnit
+ */
+public class DistanceOracleTest {
+    
+    @Test
+    public void testDistancesMatchBfs() {
+        Random rnd = new Random(11);
+        for (int t = 0; t < 6; t++) {
+            Map m = MazeFixtures.randomMaze(rnd, 9, 7, t % 2 == 0, 9 * 7 / 4);
+            DistanceOracle oracle = new DistanceOracle(m, 1);
+            for (int sx = 0; sx < 9; sx++) {
+                for (int sy = 0; sy < 7; sy++) {
+                    Index2D s = new Index2D(sx, sy);
+                    Map2D dist = m.allDistance(s, 1);
+                    for (int x = 0; x < 9; x++) {
+                        for (int y = 0; y < 7; y++) {
+                            assertEquals("Oracle distance should equal BFS distance",
+                                    dist.getPixel(x, y), oracle.distance(s, new Index2D(x, y)));
+                        }
+                    }
+                }
+            }
+        }
+    }
+    
+    @Test
+    public void testNextStep() {
+        Random rnd = new Random(5);
+        Map m = MazeFixtures.randomMaze(rnd, 10, 10, true, 10 * 10 / 4);
+        m.setPixel(0, 0, 0);
+        DistanceOracle oracle = new DistanceOracle(m, 1);
+        Index2D target = new Index2D(0, 0);
+        for (int x = 0; x < 10; x++) {
+            for (int y = 0; y < 10; y++) {
+                Index2D from = new Index2D(x, y);
+                int d = oracle.distance(from, target);
+                Pixel2D next = oracle.nextStep(from, target);
+                if (d <= 0) {
+                    assertNull("No step without a path or at the target", next);
+                } else {
+                    assertNotNull("A reachable cell should have a next step", next);
+                    assertEquals("Next step should be one step closer", d - 1, oracle.distance(next, target));
+                    assertEquals("Next step should be a neighbor", 1, oracle.distance(from, next));
+                }
+            }
+        }
+    }
+    
+    @Test
+    public void testLongCorridor() {
+        // Distances above 254 do not fit in the byte table
+        Map m = new Map(400, 1, 0);
+        m.setCyclic(false);
+        DistanceOracle oracle = new DistanceOracle(m, 1);
+        assertEquals("End to end distance", 399, oracle.distance(new Index2D(0, 0), new Index2D(399, 0)));
+        assertEquals("Next step from the left end", new Index2D(1, 0), oracle.nextStep(new Index2D(0, 0), new Index2D(399, 0)));
+        
+        m.setCyclic(true);
+        oracle = new DistanceOracle(m, 1);
+        assertEquals("End to end distance when cyclic", 1, oracle.distance(new Index2D(0, 0), new Index2D(399, 0)));
+        assertEquals("Half way around the ring", 200, oracle.distance(new Index2D(0, 0), new Index2D(200, 0)));
+    }
+    
+    @Test
+    public void testMatches() {
+        Map m = new Map(5, 5, 0);
+        m.setPixel(2, 2, 1);
+        DistanceOracle oracle = new DistanceOracle(m, 1);
+        assertEquals("24 walkable cells", 24, oracle.walkableCount());
+        assertEquals("Obstacle has no distance", -1, oracle.distance(new Index2D(2, 2), new Index2D(0, 0)));
+        
+        // Changing a non-obstacle color keeps the oracle valid
+        m.setPixel(0, 0, 7);
+        assertTrue("Oracle should still match", oracle.matches(m));
+        
+        m.setPixel(3, 3, 1);
+        assertFalse("A new obstacle invalidates the oracle", oracle.matches(m));
+        m.setPixel(3, 3, 0);
+        m.setCyclic(!m.isCyclic());
+        assertFalse("A different cyclic flag invalidates the oracle", oracle.matches(m));
+    }
+}
@@ -0,0 +1,90 @@
+import client.DynamicDistanceField;
+import client.Index2D;
+import client.Map;
+import client.Map2D;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+/**
+ * Test class for DynamicDistanceField using JUnit
+ */
+public class DynamicDistanceFieldTest {
+    
+    private static void assertMatchesBfs(Map m, DynamicDistanceField field, Index2D source) {
+        Map2D expected = m.allDistance(source, 1);
+        for (int x = 0; x < m.getWidth(); x++) {
+            for (int y = 0; y < m.getHeight(); y++) {
+                assertEquals("Field distance should equal BFS distance",
+                        expected.getPixel(x, y), field.distance(x, y));
+            }
+        }
+    }
+    
+    @Test
+    public void testRandomWalkMatchesBfs() {
+        Random rnd = new Random(23);
+        int[][] steps = {{0, 1}, {0, -1}, {1, 0}, {-1, 0}};
+        for (int t = 0; t < 6; t++) {
+            Map m = MazeFixtures.randomMaze(rnd, 12, 9, t % 2 == 0, 12 * 9 / 3);
+            DynamicDistanceField field = new DynamicDistanceField();
+            Index2D pos = new Index2D(rnd.nextInt(12), rnd.nextInt(9));
+            m.setPixel(pos, 0);
+            field.update(m, pos, 1);
+            assertMatchesBfs(m, field, pos);
+            for (int i = 0; i < 200; i++) {
+                int[] s = steps[rnd.nextInt(4)];
+                int x = pos.getX() + s[0], y = pos.getY() + s[1];
+                if (m.isCyclic()) {
+                    x = (x + 12) % 12;
+                    y = (y + 9) % 9;
+                }
+                Index2D next = new Index2D(x, y);
+                if (m.isInside(next) && m.getPixel(next) != 1) {
+                    pos = next;
+                }
+                field.update(m, pos, 1);
+                assertMatchesBfs(m, field, pos);
+            }
+        }
+    }
+    
+    @Test
+    public void testMoveRepairsOnlyCloserCells() {
+        // A corridor: moving right lowers the cells ahead, the cells behind are raised for free
+        Map m = new Map(40, 1, 0);
+        m.setCyclic(false);
+        DynamicDistanceField field = new DynamicDistanceField();
+        field.update(m, new Index2D(30, 0), 1);
+        assertEquals("The first update is a full BFS", 40, field.lastUpdateCost());
+        field.update(m, new Index2D(31, 0), 1);
+        assertEquals("Only the source and the cells ahead are written", 9, field.lastUpdateCost());
+        assertEquals(31, field.distance(0, 0));
+        assertEquals(8, field.distance(39, 0));
+        field.update(m, new Index2D(31, 0), 1);
+        assertEquals("Staying in place costs nothing", 0, field.lastUpdateCost());
+        field.update(m, new Index2D(30, 0), 1);
+        assertEquals("A repair of most of the cells falls back to a full BFS", 40, field.lastUpdateCost());
+        assertEquals(30, field.distance(0, 0));
+    }
+    
+    @Test
+    public void testJumpAndInvalidate() {
+        Map m = new Map(10, 10, 0);
+        DynamicDistanceField field = new DynamicDistanceField();
+        field.update(m, new Index2D(1, 1), 1);
+        field.update(m, new Index2D(7, 7), 1);
+        assertMatchesBfs(m, field, new Index2D(7, 7));
+        // New walls: the field must be invalidated before the next update
+        for (int y = 0; y < 10; y++) {
+            m.setPixel(5, y, 1);
+        }
+        field.invalidate();
+        field.update(m, new Index2D(7, 8), 1);
+        assertMatchesBfs(m, field, new Index2D(7, 8));
+        field.update(m, new Index2D(5, 5), 1);
+        assertEquals("A source on an obstacle reaches nothing", -1, field.distance(6, 5));
+        assertEquals("Outside the map is unreachable", -1, field.distance(20, 5));
+    }
+}
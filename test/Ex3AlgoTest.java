@@ -0,0 +1,63 @@
+import client.Ex3Algo;
+import org.junit.Test;
+import static org.junit.Assert.*;
+import server.Game;
+import server.GameState;
+import server.GhostCL;
+import server.PacmanGame;
+
+/**
+ * Test class for Ex3Algo using JUnit (on hand-made boards, without the game server)
+ */
+public class Ex3AlgoTest {
+
+    /** A game frozen on one board, indexed [x][y] like the server's */
+    private static PacmanGame stubGame(int[][] board, int pacmanX, int pacmanY, int[][] ghosts) {
+        GhostCL[] ghostCLs = new GhostCL[ghosts.length];
+        for (int i = 0; i < ghosts.length; i++) {
+            String pos = ghosts[i][0] + "," + ghosts[i][1];
+            ghostCLs[i] = new GhostCL() {
+                public String getPos(int code) { return pos; }
+                public double remainTimeAsEatable(int code) { return 0; }
+            };
+        }
+        return new PacmanGame() {
+            public int[][] getGame(int code) { return board; }
+            public String getPos(int code) { return pacmanX + "," + pacmanY; }
+            public GhostCL[] getGhosts(int code) { return ghostCLs; }
+            public int getStatus() { return RUNNING; }
+            public void move(int dir) {}
+            public void play() {}
+            public void end(int code) {}
+        };
+    }
+
+    /**
+     * An open size*size board with one dot, Pacman in the middle, a ghost two cells to its left
+     * and a second ghost walled in at (1,1).
+     */
+    private static int escapeMove(int size) {
+        int[][] board = new int[size][size];
+        int c = size / 2;
+        board[1][0] = GameState.WALL;
+        board[1][2] = GameState.WALL;
+        board[0][1] = GameState.WALL;
+        board[2][1] = GameState.WALL;
+        board[c - 4][c] = GameState.DOT;
+        return new Ex3Algo().move(stubGame(board, c, c, new int[][] {{c - 2, c}, {1, 1}}));
+    }
+
+    @Test
+    public void testEscapeIgnoresUnreachableGhost() {
+        // Moving up or down keeps 3 steps from the reachable ghost and is closer to the dot than moving right
+        int move = escapeMove(15);
+        assertTrue("A walled-in ghost must not hide the reachable one", move == Game.UP || move == Game.DOWN);
+    }
+
+    @Test
+    public void testEscapeIgnoresUnreachableGhostWithoutOracle() {
+        // Too many walkable cells for a distance table: distances come from searches instead
+        int move = escapeMove(50);
+        assertTrue("A walled-in ghost must not hide the reachable one", move == Game.UP || move == Game.DOWN);
+    }
+}
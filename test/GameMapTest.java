@@ -0,0 +1,54 @@
+import org.junit.Test;
+import static org.junit.Assert.*;
+import server.GameMap;
+import server.GameState;
+import server.Index2D;
+import server.Pixel2D;
+
+/**
+ * JUnit tests for GameMap class
+ */
+public class GameMapTest {
+
+    // ==================== Shortest Path Tests ====================
+
+    @Test
+    public void testPathPrefersNeighborOrder() {
+        GameMap map = new GameMap(3, 3, 0);
+        map.setCyclic(false);
+        Pixel2D[] path = map.shortestPath(Index2D.of(0, 0), Index2D.of(1, 1), GameState.WALL);
+        assertNotNull("Path should exist", path);
+        assertArrayEquals("Ties go to the first neighbor in BFS order (y+1 before x+1)",
+                new Pixel2D[] {Index2D.of(0, 0), Index2D.of(0, 1), Index2D.of(1, 1)}, path);
+    }
+
+    @Test
+    public void testPathAroundWallsAndAcrossBorder() {
+        // Board indexed [x][y]: a wall column at x = 1 with a gap at y = 3
+        int[][] board = new int[4][4];
+        for (int y = 0; y < 3; y++) {
+            board[1][y] = GameState.WALL;
+        }
+        GameMap map = GameMap.ofColumns(board);
+        map.setCyclic(false);
+        Pixel2D[] path = map.shortestPath(Index2D.of(0, 0), Index2D.of(2, 0), GameState.WALL);
+        assertEquals("Path goes through the gap", 9, path.length);
+        assertEquals(Index2D.of(1, 3), path[4]);
+
+        map.setCyclic(true);
+        path = map.shortestPath(Index2D.of(0, 0), Index2D.of(2, 0), GameState.WALL);
+        assertEquals("Cyclic path wraps around the left border", 3, path.length);
+        assertEquals(Index2D.of(3, 0), path[1]);
+    }
+
+    @Test
+    public void testNoPath() {
+        int[][] board = new int[3][1];
+        board[1][0] = GameState.WALL;
+        GameMap map = GameMap.ofColumns(board);
+        map.setCyclic(false);
+        assertNull("Wall blocks the only row", map.shortestPath(Index2D.of(0, 0), Index2D.of(2, 0), GameState.WALL));
+        assertNull("Path cannot end on a wall", map.shortestPath(Index2D.of(0, 0), Index2D.of(1, 0), GameState.WALL));
+        assertNull("Path cannot leave the board", map.shortestPath(Index2D.of(0, 0), Index2D.of(5, 0), 7));
+    }
+}
@@ -1,4 +1,5 @@
 import client.Index2D;
+import client.PackedPixel;
 import org.junit.Test;
 import static org.junit.Assert.*;
 
@@ -90,4 +91,17 @@ public class Index2DTest {
         String str2 = p2.toString();
         assertEquals("toString() should return '0,0'", "0,0", str2);
     }
+    
+    @Test
+    public void testHashCode() {
+        assertEquals("Equal pixels should have equal hash codes",
+                new Index2D(4, 9).hashCode(), new Index2D(4, 9).hashCode());
+        assertEquals("Index2D and PackedPixel should hash alike",
+                new Index2D(4, 9).hashCode(), PackedPixel.of(4, 9).hashCode());
+        java.util.Set<Object> set = new java.util.HashSet<>();
+        set.add(new Index2D(1, 2));
+        assertTrue("HashSet lookup by an equal pixel", set.contains(new Index2D(1, 2)));
+        assertTrue("HashSet lookup by an equal PackedPixel", set.contains(PackedPixel.of(1, 2)));
+        assertFalse(set.contains(new Index2D(2, 1)));
+    }
 }
@@ -0,0 +1,90 @@
+import client.Index2D;
+import client.JunctionGraph;
+import client.Map;
+import client.Map2D;
+import client.Pixel2D;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+/**
+ * Test class for JunctionGraph using JUnit
+ */
+public class JunctionGraphTest {
+    
+    @Test
+    public void testDistancesAndPathsMatchBfs() {
+        Random rnd = new Random(17);
+        for (int t = 0; t < 8; t++) {
+            int w = 7 + t, h = 6 + t % 3;
+            // Dense obstacles give corridors and dead ends, sparse ones open rooms
+            Map m = MazeFixtures.randomMaze(rnd, w, h, t % 2 == 0, w * h * (t < 4 ? 2 : 1) / 5);
+            JunctionGraph graph = new JunctionGraph(m, 1);
+            for (int sx = 0; sx < w; sx++) {
+                for (int sy = 0; sy < h; sy++) {
+                    Index2D s = new Index2D(sx, sy);
+                    Map2D dist = m.allDistance(s, 1);
+                    for (int x = 0; x < w; x++) {
+                        for (int y = 0; y < h; y++) {
+                            Index2D e = new Index2D(x, y);
+                            int d = dist.getPixel(x, y);
+                            assertEquals("Graph distance should equal BFS distance", d, graph.distance(s, e));
+                            Pixel2D[] path = graph.shortestPath(s, e);
+                            if (d < 0) {
+                                assertNull("An unreachable target should have no path", path);
+                            } else {
+                                MazeFixtures.assertValidPath(m, path, s, e, d);
+                            }
+                        }
+                    }
+                }
+            }
+        }
+    }
+    
+    @Test
+    public void testCorridorContraction() {
+        // A single corridor with a dead end on both sides: 2 nodes, 1 edge
+        Map m = new Map(7, 3, 1);
+        m.setCyclic(false);
+        for (int x = 0; x < 7; x++) {
+            m.setPixel(x, 1, 0);
+        }
+        JunctionGraph graph = new JunctionGraph(m, 1);
+        assertEquals("Two dead ends should be the only nodes", 2, graph.nodeCount());
+        assertEquals("One corridor should be one edge", 1, graph.edgeCount());
+        assertEquals("Edge weight should be the corridor length", 6, graph.edgeLength(0));
+        assertEquals("Corridor cells should know their offset", 3, graph.offsetOf(new Index2D(3, 1)));
+        assertEquals("Obstacles should not be on an edge", -1, graph.edgeOf(new Index2D(3, 0)));
+        assertEquals(6, graph.distance(new Index2D(0, 1), new Index2D(6, 1)));
+        assertEquals(2, graph.distance(new Index2D(4, 1), new Index2D(2, 1)));
+    }
+    
+    @Test
+    public void testLoopWithoutJunctions() {
+        // A cyclic corridor has no junctions and no dead ends
+        Map m = new Map(8, 3, 1);
+        m.setCyclic(true);
+        for (int x = 0; x < 8; x++) {
+            m.setPixel(x, 1, 0);
+        }
+        JunctionGraph graph = new JunctionGraph(m, 1);
+        assertEquals("A loop should get one node", 1, graph.nodeCount());
+        assertEquals("A loop should be one edge", 1, graph.edgeCount());
+        assertEquals("Wrapping around should be shorter", 2, graph.distance(new Index2D(1, 1), new Index2D(7, 1)));
+        Pixel2D[] path = graph.shortestPath(new Index2D(1, 1), new Index2D(7, 1));
+        MazeFixtures.assertValidPath(m, path, new Index2D(1, 1), new Index2D(7, 1), 2);
+    }
+    
+    @Test
+    public void testOutsideAndObstacles() {
+        Map m = new Map(5, 5, 0);
+        m.setPixel(2, 2, 1);
+        JunctionGraph graph = new JunctionGraph(m, 1);
+        assertEquals(-1, graph.distance(new Index2D(0, 0), new Index2D(2, 2)));
+        assertEquals(-1, graph.distance(new Index2D(0, 0), new Index2D(9, 9)));
+        assertNull(graph.shortestPath(new Index2D(2, 2), new Index2D(0, 0)));
+        assertEquals(1, graph.shortestPath(new Index2D(1, 1), new Index2D(1, 1)).length);
+    }
+}
@@ -211,4 +211,520 @@ public class MapTest {
         int filledSame = m.fill(new Index2D(1, 1), 2);
         assertEquals("Filling with same color should return 0", 0, filledSame);
     }
+
+    @Test
+    public void testGetMapCopy() {
+        int[][] data = {{1, 2, 3}, {4, 5, 6}};
+        Map m = new Map(data);
+        int[][] copy = m.getMap();
+        assertArrayEquals("getMap should return the [y][x] data", data, copy);
+        
+        // Modifying the copy must not change the map
+        copy[0][0] = 99;
+        assertEquals("Map should be unaffected by changes to the copy", 1, m.getPixel(0, 0));
+    }
+    
+    @Test(expected = IllegalArgumentException.class)
+    public void testInitRaggedArray() {
+        new Map(new int[][] {{1, 2, 3}, {4, 5}});
+    }
+    
+    @Test
+    public void testCyclicAllDistance() {
+        Map m = new Map(5, 3, 0);
+        m.setCyclic(true);
+        
+        Map2D distances = m.allDistance(new Index2D(0, 0), 1);
+        assertEquals("(4,0) is one step left of (0,0) when cyclic", 1, distances.getPixel(4, 0));
+        assertEquals("(0,2) is one step below (0,0) when cyclic", 1, distances.getPixel(0, 2));
+        assertEquals("(4,2) wraps on both axes", 2, distances.getPixel(4, 2));
+        
+        m.setCyclic(false);
+        distances = m.allDistance(new Index2D(0, 0), 1);
+        assertEquals("(4,0) is 4 steps away when not cyclic", 4, distances.getPixel(4, 0));
+        assertEquals("(4,2) is 6 steps away when not cyclic", 6, distances.getPixel(4, 2));
+    }
+    
+    @Test
+    public void testCyclicShortestPath() {
+        // A wall column at x=2 splits the map unless the edges wrap
+        int[][] data = {
+            {0, 0, 1, 0, 0},
+            {0, 0, 1, 0, 0},
+            {0, 0, 1, 0, 0}
+        };
+        Map m = new Map(data);
+        m.setCyclic(false);
+        assertNull("No path across the wall when not cyclic", m.shortestPath(new Index2D(0, 1), new Index2D(4, 1), 1));
+        
+        m.setCyclic(true);
+        Pixel2D[] path = m.shortestPath(new Index2D(0, 1), new Index2D(4, 1), 1);
+        assertNotNull("Path should wrap around the left edge", path);
+        assertEquals("Wrapped path should have 2 pixels", 2, path.length);
+        assertEquals("Path should end at (4,1)", new Index2D(4, 1), path[1]);
+        
+        assertNull("Path to an obstacle should be null", m.shortestPath(new Index2D(0, 1), new Index2D(2, 1), 1));
+    }
+
+    @Test
+    public void testFillLargeRegion() {
+        // A recursive fill would overflow the stack on a region this large
+        Map m = new Map(1000, 1000, 0);
+        m.setCyclic(false);
+        int filled = m.fill(new Index2D(500, 500), 3);
+        assertEquals("Should fill every pixel", 1000 * 1000, filled);
+        assertEquals("Corner should be filled", 3, m.getPixel(999, 0));
+    }
+    
+    @Test
+    public void testFillMatchesComponentSize() {
+        // Random walls; the filled count must equal the size of the BFS component
+        java.util.Random rnd = new java.util.Random(7);
+        for (int t = 0; t < 20; t++) {
+            Map m = MazeFixtures.randomMaze(rnd, 17, 13, t % 2 == 0, 80);
+            m.setPixel(8, 6, 0);
+            Map2D dist = m.allDistance(new Index2D(8, 6), 1);
+            int reachable = 0;
+            for (int x = 0; x < 17; x++) {
+                for (int y = 0; y < 13; y++) {
+                    if (dist.getPixel(x, y) >= 0) reachable++;
+                }
+            }
+            assertEquals("Fill count should match the connected component", reachable, m.fill(new Index2D(8, 6), 2));
+            for (int x = 0; x < 17; x++) {
+                for (int y = 0; y < 13; y++) {
+                    assertEquals("Only the component should be recolored",
+                            dist.getPixel(x, y) >= 0, m.getPixel(x, y) == 2);
+                }
+            }
+        }
+    }
+    
+    @Test
+    public void testCyclicFill() {
+        // The two halves are connected only through the wrapped edges
+        int[][] data = {
+            {0, 1, 0},
+            {1, 1, 1},
+            {0, 1, 0}
+        };
+        Map m = new Map(data);
+        m.setCyclic(false);
+        assertEquals("Without wrapping only the corner is filled", 1, m.fill(new Index2D(0, 0), 5));
+        
+        m = new Map(data);
+        m.setCyclic(true);
+        assertEquals("With wrapping all four corners are connected", 4, m.fill(new Index2D(0, 0), 5));
+        assertEquals("Opposite corner should be filled", 5, m.getPixel(2, 2));
+    }
+    
+    @Test
+    public void testFillInsideBox() {
+        Map m = new Map(6, 6, 0);
+        m.setCyclic(true);
+        int filled = m.fill(new Index2D(2, 2), 7, 1, 1, 3, 4);
+        assertEquals("Should fill the 3x4 box only", 12, filled);
+        assertEquals("Inside the box should be filled", 7, m.getPixel(3, 4));
+        assertEquals("Outside the box should remain 0", 0, m.getPixel(0, 0));
+        assertEquals("Outside the box should remain 0", 0, m.getPixel(4, 2));
+        assertEquals("Start outside the box fills nothing", 0, m.fill(new Index2D(5, 5), 7, 1, 1, 3, 4));
+    }
+
+    @Test
+    public void testMultiSourceDistance() {
+        Map m = new Map(7, 3, 0);
+        m.setCyclic(false);
+        m.setPixel(3, 1, 1);
+        java.util.List<Pixel2D> sources = java.util.Arrays.asList(new Index2D(0, 1), new Index2D(6, 1));
+        
+        Map nearest = new Map(1, 1, 0);
+        Map2D distances = m.allDistance(sources, 1, nearest);
+        assertEquals("Sources have distance 0", 0, distances.getPixel(6, 1));
+        assertEquals("(2,1) is 2 steps from the first source", 2, distances.getPixel(2, 1));
+        assertEquals("(5,0) is 2 steps from the second source", 2, distances.getPixel(5, 0));
+        assertEquals("Obstacle should have distance -1", -1, distances.getPixel(3, 1));
+        assertEquals("(1,2) is nearest to source 0", 0, nearest.getPixel(1, 2));
+        assertEquals("(5,2) is nearest to source 1", 1, nearest.getPixel(5, 2));
+        assertEquals("Obstacle has no nearest source", -1, nearest.getPixel(3, 1));
+        
+        // Every entry must equal the minimum over single-source BFS runs
+        Map2D d0 = m.allDistance(sources.get(0), 1);
+        Map2D d1 = m.allDistance(sources.get(1), 1);
+        for (int x = 0; x < 7; x++) {
+            for (int y = 0; y < 3; y++) {
+                int expected = Math.min(d0.getPixel(x, y), d1.getPixel(x, y));
+                if (d0.getPixel(x, y) < 0) expected = d1.getPixel(x, y);
+                assertEquals("Multi-source distance should be the minimum", expected, distances.getPixel(x, y));
+            }
+        }
+    }
+
+    @Test
+    public void testBitParallelAllDistance() {
+        java.util.Random rnd = new java.util.Random(3);
+        for (int t = 0; t < 16; t++) {
+            // Widths around 64 exercise the carries between the words of a row
+            int w = 50 + rnd.nextInt(100), h = 20 + rnd.nextInt(40);
+            Map m = MazeFixtures.randomMaze(rnd, w, h, t % 2 == 0, w * h * (t % 4) / 10);
+            Index2D start = new Index2D(rnd.nextInt(w), rnd.nextInt(h));
+            m.setPixel(start, 0);
+            
+            m.setBitParallelThreshold(Integer.MAX_VALUE);
+            Map2D expected = m.allDistance(start, 1);
+            m.setBitParallelThreshold(0);
+            Map2D actual = m.allDistance(start, 1);
+            assertArrayEquals("Bit-parallel BFS should match the queue BFS", expected.getMap(), actual.getMap());
+        }
+        
+        Map m = new Map(3, 3, 1);
+        m.setBitParallelThreshold(0);
+        assertEquals("Start on an obstacle gives -1", -1, m.allDistance(new Index2D(1, 1), 1).getPixel(1, 1));
+    }
+    
+    @Test
+    public void testParallelAllDistance() {
+        java.util.Random rnd = new java.util.Random(9);
+        for (int t = 0; t < 4; t++) {
+            // Large enough for levels of several thousand cells, which are split between tasks
+            int w = 1200 - t * 300 + rnd.nextInt(7), h = 900;
+            Map m = MazeFixtures.randomMaze(rnd, w, h, t % 2 == 0, w * h * t / 10);
+            Index2D start = new Index2D(rnd.nextInt(w), rnd.nextInt(h));
+            m.setPixel(start, 0);
+            
+            m.setParallelThreshold(Integer.MAX_VALUE);
+            m.setBitParallelThreshold(Integer.MAX_VALUE);
+            Map2D expected = m.allDistance(start, 1);
+            m.setParallelThreshold(0);
+            Map2D actual = m.allDistance(start, 1);
+            assertArrayEquals("Parallel BFS should match the queue BFS", expected.getMap(), actual.getMap());
+        }
+        
+        Map m = new Map(3, 3, 0);
+        m.setParallelThreshold(0);
+        assertEquals("Distances on a small map", 2, m.allDistance(new Index2D(0, 0), 1).getPixel(1, 1));
+        assertEquals("Start outside the map gives -1", -1, m.allDistance(new Index2D(5, 5), 1).getPixel(1, 1));
+    }
+    
+    @Test
+    public void testIntPathAndFirstStep() {
+        java.util.Random rnd = new java.util.Random(21);
+        client.BfsWorkspace ws = new client.BfsWorkspace();
+        client.IntPath path = new client.IntPath();
+        for (int t = 0; t < 40; t++) {
+            Map m = MazeFixtures.randomMaze(rnd, 15, 11, t % 2 == 0, 50);
+            Index2D a = new Index2D(rnd.nextInt(15), rnd.nextInt(11));
+            Index2D b = new Index2D(rnd.nextInt(15), rnd.nextInt(11));
+            Pixel2D[] expected = m.shortestPath(a, b, 1, ws);
+            boolean found = m.shortestPath(a, b, 1, ws, path);
+            Pixel2D step = m.firstStep(a, b, 1);
+            if (expected == null) {
+                assertFalse("No path should be found", found);
+                assertTrue("A missing path should be empty", path.isEmpty());
+                assertNull("No first step without a path", step);
+                continue;
+            }
+            assertTrue(found);
+            assertArrayEquals("IntPath should hold the same path", expected, path.toArray());
+            for (int i = 0; i < path.length(); i++) {
+                assertEquals(expected[i].getX(), path.getX(i));
+                assertEquals(expected[i].getY(), path.getY(i));
+            }
+            if (expected.length == 1) {
+                assertNull("No first step at the target", step);
+            } else {
+                assertEquals("First step should be the second pixel of the path", expected[1], step);
+            }
+        }
+    }
+    
+    @Test
+    public void testNearest() {
+        java.util.Random rnd = new java.util.Random(31);
+        for (int t = 0; t < 30; t++) {
+            Map m = MazeFixtures.randomMaze(rnd, 14, 10, t % 2 == 0, 40);
+            for (int i = 0; i < 12; i++) {
+                m.setPixel(rnd.nextInt(14), rnd.nextInt(10), 2);
+            }
+            Index2D start = new Index2D(rnd.nextInt(14), rnd.nextInt(10));
+            m.setPixel(start, 0);
+            Map2D dist = m.allDistance(start, 1);
+            java.util.List<Integer> expected = new java.util.ArrayList<>();
+            for (int x = 0; x < 14; x++) {
+                for (int y = 0; y < 10; y++) {
+                    if (m.getPixel(x, y) == 2 && dist.getPixel(x, y) >= 0) {
+                        expected.add(dist.getPixel(x, y));
+                    }
+                }
+            }
+            java.util.Collections.sort(expected);
+            int k = 1 + rnd.nextInt(5);
+            int[] distances = new int[k];
+            Pixel2D[] found = m.nearest(start, 2, k, 1, distances, new client.BfsWorkspace());
+            assertEquals("Should find min(k, reachable targets)", Math.min(k, expected.size()), found.length);
+            for (int i = 0; i < found.length; i++) {
+                assertEquals("Found cells should have the target color", 2, m.getPixel(found[i]));
+                assertEquals("Distances should be the k smallest", (int) expected.get(i), distances[i]);
+                assertEquals("Reported distance should be the BFS distance", dist.getPixel(found[i]), distances[i]);
+            }
+        }
+        Map m = new Map(5, 5, 0);
+        assertEquals("No targets", 0, m.nearest(new Index2D(2, 2), 7, 3, 1).length);
+        assertEquals("Start counts at distance 0", new Index2D(2, 2), m.nearest(new Index2D(2, 2), 0, 1, 1)[0]);
+    }
+    
+    @Test
+    public void testPassablePredicate() {
+        // 1 is a wall, 2 must be avoided too; the direct route crosses a 2
+        Map m = new Map(7, 5, 0);
+        m.setCyclic(false);
+        for (int y = 0; y < 4; y++) {
+            m.setPixel(3, y, 1);
+        }
+        m.setPixel(3, 4, 0);
+        m.setPixel(2, 4, 2);
+        java.util.function.IntPredicate passable = v -> v != 1 && v != 2;
+        assertNull("Walls and 2s block every route", m.shortestPath(new Index2D(0, 0), new Index2D(6, 0), passable));
+        m.setPixel(2, 4, 0);
+        m.setPixel(2, 3, 2);
+        Pixel2D[] path = m.shortestPath(new Index2D(0, 0), new Index2D(6, 0), passable);
+        assertNotNull("A route around the 2 exists", path);
+        for (Pixel2D p : path) {
+            assertTrue("Path should only visit passable cells", passable.test(m.getPixel(p)));
+        }
+        Map2D dist = m.allDistance(new Index2D(0, 0), passable);
+        assertEquals("Distances should match the path", path.length - 1, dist.getPixel(6, 0));
+        assertEquals("Avoided cells are not reached", -1, dist.getPixel(2, 3));
+        
+        // With only walls impassable the predicate search equals the obstacle color search
+        java.util.Random rnd = new java.util.Random(8);
+        client.IntPath intPath = new client.IntPath();
+        for (int t = 0; t < 20; t++) {
+            Map r = MazeFixtures.randomMaze(rnd, 12, 9, t % 2 == 0, 35);
+            Index2D s = new Index2D(rnd.nextInt(12), rnd.nextInt(9));
+            Index2D e = new Index2D(rnd.nextInt(12), rnd.nextInt(9));
+            assertArrayEquals(r.allDistance(s, 1).getMap(), r.allDistance(s, v -> v != 1).getMap());
+            Pixel2D[] expected = r.shortestPath(s, e, 1, new client.BfsWorkspace());
+            boolean found = r.shortestPath(s, e, v -> v != 1, new client.BfsWorkspace(), intPath);
+            assertEquals(expected != null, found);
+            if (found) {
+                assertArrayEquals(expected, intPath.toArray());
+            }
+        }
+    }
+
+    @Test
+    public void testFingerprint() {
+        java.util.Random rnd = new java.util.Random(20);
+        Map m = new Map(15, 11, 0);
+        long empty = m.fingerprint();
+        long emptyWalls = m.passabilityFingerprint(1);
+        for (int t = 0; t < 200; t++) {
+            int x = rnd.nextInt(15), y = rnd.nextInt(11), v = rnd.nextInt(4);
+            if (t % 10 == 0) {
+                m.fill(new Index2D(x, y), v);
+            }
+            else {
+                m.setPixel(x, y, v);
+            }
+            // The incrementally maintained fingerprints equal the ones of a fresh copy
+            Map copy = new Map(m.getMap());
+            assertEquals("Fingerprint after change " + t, copy.fingerprint(), m.fingerprint());
+            assertEquals("Passability fingerprint after change " + t, copy.passabilityFingerprint(1), m.passabilityFingerprint(1));
+        }
+        m.init(15, 11, 0);
+        assertEquals("Equal content gives an equal fingerprint", empty, m.fingerprint());
+        assertEquals(emptyWalls, m.passabilityFingerprint(1));
+
+        // Eating a dot keeps the passability fingerprint, adding a wall changes it
+        m.setPixel(3, 3, 2);
+        long content = m.fingerprint();
+        long walls = m.passabilityFingerprint(1);
+        m.setPixel(3, 3, 0);
+        assertNotEquals("Content changed", content, m.fingerprint());
+        assertEquals("Walls did not change", walls, m.passabilityFingerprint(1));
+        m.setPixel(4, 4, 1);
+        assertNotEquals("Walls changed", walls, m.passabilityFingerprint(1));
+        m.setPixel(4, 4, 0);
+        assertEquals("Undoing a change restores the fingerprint", empty, m.fingerprint());
+
+        // The shape is part of the fingerprint
+        m.setCyclic(!m.isCyclic());
+        assertNotEquals("Cyclic flag changed", empty, m.fingerprint());
+        assertNotEquals("Size differs", new Map(11, 15, 0).fingerprint(), new Map(15, 11, 0).fingerprint());
+    }
+
+    @Test
+    public void testOfColumns() {
+        java.util.Random rnd = new java.util.Random(23);
+        int w = 11, h = 8;
+        int[][] board = new int[w][h];
+        int[][] rows = new int[h][w];
+        for (int x = 0; x < w; x++) {
+            for (int y = 0; y < h; y++) {
+                board[x][y] = rows[y][x] = rnd.nextInt(5) == 0 ? 1 : 0;
+            }
+        }
+        Map view = Map.ofColumns(board);
+        Map copy = new Map(rows);
+        assertEquals("Width is the number of columns", w, view.getWidth());
+        assertEquals(h, view.getHeight());
+        assertArrayEquals("The view reads the board as [x][y]", copy.getMap(), view.getMap());
+        assertEquals(copy.fingerprint(), view.fingerprint());
+        Index2D start = new Index2D(0, 0);
+        view.setPixel(start, 0);
+        copy.setPixel(start, 0);
+        assertArrayEquals("Algorithms agree on the view", copy.allDistance(start, 1).getMap(), view.allDistance(start, 1).getMap());
+        Index2D end = new Index2D(w - 1, h - 1);
+        view.setPixel(end, 0);
+        copy.setPixel(end, 0);
+        Pixel2D[] expected = copy.shortestPath(start, end, 1);
+        Pixel2D[] actual = view.shortestPath(start, end, 1);
+        assertEquals(expected == null, actual == null);
+        if (expected != null) {
+            assertEquals(expected.length, actual.length);
+        }
+        
+        // Writes go to the board itself
+        view.setPixel(3, 2, 7);
+        assertEquals("setPixel writes through", 7, board[3][2]);
+        int filled = view.fill(new Index2D(3, 2), 9);
+        assertEquals("A lone cell is filled", 1, filled);
+        assertEquals("fill writes through", 9, board[3][2]);
+        
+        // init gives the map storage of its own
+        view.init(2, 2, 5);
+        assertEquals("The board is not touched by init", 9, board[3][2]);
+        assertEquals(5, view.getPixel(1, 1));
+        
+        try {
+            Map.ofColumns(new int[][] {{1, 2}, {3}});
+            fail("Ragged arrays should be rejected");
+        } catch (IllegalArgumentException expectedException) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testOfColumnsWidths() {
+        // The view finds the column of a cell without a division, which must be exact for every width
+        java.util.Random rnd = new java.util.Random(230);
+        for (int w = 1; w <= 70; w++) {
+            int h = 1 + rnd.nextInt(5);
+            int[][] board = new int[w][h];
+            for (int x = 0; x < w; x++) {
+                for (int y = 0; y < h; y++) {
+                    board[x][y] = x * 100 + y;
+                }
+            }
+            Map view = Map.ofColumns(board);
+            for (int x = 0; x < w; x++) {
+                for (int y = 0; y < h; y++) {
+                    assertEquals("Cell (" + x + "," + y + ") of a width " + w + " view", x * 100 + y, view.getPixel(x, y));
+                }
+            }
+            view.setPixel(w - 1, h - 1, -5);
+            assertEquals("Writes reach the right column", -5, board[w - 1][h - 1]);
+        }
+    }
+    
+    @Test
+    public void testCopyColumns() {
+        java.util.Random rnd = new java.util.Random(20);
+        int w = 9, h = 7;
+        int[][] board = new int[w][h];
+        for (int x = 0; x < w; x++) {
+            for (int y = 0; y < h; y++) {
+                board[x][y] = rnd.nextInt(4) == 0 ? 1 : 2;
+            }
+        }
+        Map kept = new Map(3, 3, 0);
+        kept.copyColumns(board);
+        assertArrayEquals("A map of other dimensions is resized", Map.ofColumns(board).getMap(), kept.getMap());
+        long walls = kept.passabilityFingerprint(1);
+        
+        // Eating a dot changes one cell and not the walls
+        board[4][3] = 0;
+        assertEquals("Only the changed cell is written", 1, kept.copyColumns(board));
+        assertEquals(0, kept.getPixel(4, 3));
+        assertEquals(walls, kept.passabilityFingerprint(1));
+        assertEquals("The incremental fingerprint matches a fresh map", Map.ofColumns(board).fingerprint(), kept.fingerprint());
+        board[0][0] = board[0][0] == 1 ? 0 : 1;
+        assertEquals(1, kept.copyColumns(board));
+        assertNotEquals("A changed wall changes the passability fingerprint", walls, kept.passabilityFingerprint(1));
+        assertEquals("Nothing to copy twice", 0, kept.copyColumns(board));
+    }
+    
+    @Test
+    public void testOffHeap() {
+        java.util.Random rnd = new java.util.Random(24);
+        int w = 13, h = 9;
+        Map compact = Map.offHeap(w, h, 0);
+        Map plain = new Map(w, h, 0);
+        assertEquals(w, compact.getWidth());
+        assertEquals(h, compact.getHeight());
+        assertArrayEquals("Starts with the init value", plain.getMap(), compact.getMap());
+        for (int t = 0; t < 150; t++) {
+            int x = rnd.nextInt(w), y = rnd.nextInt(h), v = rnd.nextInt(4) == 0 ? 1 : rnd.nextInt(3) * 7;
+            if (t % 15 == 0) {
+                assertEquals(plain.fill(new Index2D(x, y), v), compact.fill(new Index2D(x, y), v));
+            }
+            else {
+                plain.setPixel(x, y, v);
+                compact.setPixel(x, y, v);
+            }
+        }
+        assertArrayEquals("Same cells after the same changes", plain.getMap(), compact.getMap());
+        assertEquals(plain.fingerprint(), compact.fingerprint());
+        Index2D start = new Index2D(6, 4);
+        assertArrayEquals("Algorithms agree", plain.allDistance(start, 1).getMap(), compact.allDistance(start, 1).getMap());
+        assertEquals("Outside pixels read -1", -1, compact.getPixel(w, 0));
+        
+        // A byte indexes 256 distinct values: the next one is rejected, and the map stays off-heap
+        int stored = 0;
+        try {
+            for (int i = 0; i < 300; i++, stored++) {
+                compact.setPixel(i % w, (i / w) % h, -1000 + i);
+                plain.setPixel(i % w, (i / w) % h, -1000 + i);
+            }
+            fail("A 257th distinct value should be rejected");
+        } catch (IllegalArgumentException expected) {
+            // expected
+        }
+        assertEquals("Stored until the palette is full", 256 - 4, stored);
+        assertArrayEquals("The rejected cell is unchanged", plain.getMap(), compact.getMap());
+        assertEquals(plain.fingerprint(), compact.fingerprint());
+        try {
+            Map.offHeap(100000, 100000, 0);
+            fail("More cells than a buffer holds should be rejected");
+        } catch (IllegalArgumentException expected) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testOffHeapInit() {
+        Map compact = Map.offHeap(4, 3, 0);
+        compact.init(5, 2, 7);
+        assertArrayEquals("init sets every cell", new Map(5, 2, 7).getMap(), compact.getMap());
+        try {
+            compact.init(100000, 100000, 0);
+            fail("init keeps the map off-heap, so it is limited to what a buffer holds");
+        } catch (IllegalArgumentException expected) {
+            // expected
+        }
+
+        int[][] data = new int[3][120];
+        for (int i = 0; i < 360; i++) {
+            data[i / 120][i % 120] = i % 4 == 0 ? 1 : i;
+        }
+        compact = Map.offHeap(2, 2, 0);
+        try {
+            compact.init(data);
+            fail("init from more than 256 distinct values should be rejected");
+        } catch (IllegalArgumentException expected) {
+            // expected
+        }
+        compact.init(new int[][] {{0, 1}, {1, 0}});
+        assertArrayEquals(new int[][] {{0, 1}, {1, 0}}, compact.getMap());
+    }
 }
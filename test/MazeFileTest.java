@@ -0,0 +1,114 @@
+import client.Index2D;
+import client.Map;
+import client.MazeLoader;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+import server.GameState;
+import server.MazeFile;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+/**
+ * Test class for MazeFile and MazeLoader using JUnit
+ */
+public class MazeFileTest {
+    
+    /** Mapped files cannot be deleted on every platform while mapped, so they are left to the rule */
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+    
+    @Test
+    public void testBoardRoundTrip() throws IOException {
+        GameState state = new GameState(false, 50);
+        int[][] board = state.getBoard();
+        Path file = folder.newFile("maze.bin").toPath();
+        MazeFile.write(file, board, true);
+        MazeFile maze = MazeFile.open(file);
+        assertEquals("Width is the number of columns", board.length, maze.getWidth());
+        assertEquals(board[0].length, maze.getHeight());
+        assertTrue("Cyclic flag is kept", maze.isCyclic());
+        assertEquals("Board cell (3,5)", board[3][5], maze.getCell(3, 5));
+        assertArrayEquals("Decoded board equals the written one", board, maze.toBoard());
+        assertEquals("4 cell kinds", 4, maze.getPalette().length);
+        
+        state.setBoard(maze);
+        assertTrue("The game takes the maze's cyclic flag", state.isCyclicMode());
+        assertEquals(board[1][1], state.getCell(1, 1));
+    }
+    
+    @Test
+    public void testLoadedMapMatchesSavedMap() throws IOException {
+        Random rnd = new Random(25);
+        int w = 37, h = 21;
+        Map m = new Map(w, h, 0);
+        m.setCyclic(false);
+        for (int i = 0; i < w * h / 3; i++) {
+            m.setPixel(rnd.nextInt(w), rnd.nextInt(h), rnd.nextBoolean() ? -1 : 2);
+        }
+        Path file = folder.newFile("maze.bin").toPath();
+        MazeLoader.save(m, file);
+        Map loaded = MazeLoader.load(file);
+        assertFalse("Cyclic flag is kept", loaded.isCyclic());
+        assertArrayEquals("Same cells", m.getMap(), loaded.getMap());
+        Index2D start = new Index2D(rnd.nextInt(w), rnd.nextInt(h));
+        assertArrayEquals("Same distances", m.allDistance(start, -1).getMap(), loaded.allDistance(start, -1).getMap());
+        
+        // Changes stay in memory
+        loaded.setPixel(0, 0, 2);
+        loaded.setPixel(1, 0, 12345);
+        assertEquals(12345, loaded.getPixel(1, 0));
+        assertEquals("The file is not changed", m.getPixel(0, 0), MazeFile.open(file).getCell(0, 0));
+    }
+    
+    @Test
+    public void testReadOnlyFileLoadsReadOnlyMap() throws IOException {
+        Path file = folder.newFile("readonly.bin").toPath();
+        MazeFile.write(file, new int[][] {{0, 1}, {1, 0}}, false);
+        assumeTrue("The file can be made read-only", file.toFile().setWritable(false) && !Files.isWritable(file));
+        Map loaded = MazeLoader.load(file);
+        assertEquals(1, loaded.getPixel(0, 1));
+        assertThrows("A read-only map is not copied to the heap", UnsupportedOperationException.class, () -> loaded.setPixel(0, 1, 0));
+        assertEquals("The cell is unchanged", 1, loaded.getPixel(0, 1));
+    }
+    
+    @Test
+    public void testRejectsBadFiles() throws IOException {
+        Path file = folder.newFile("maze.bin").toPath();
+        Files.write(file, new byte[] {1, 2, 3});
+        assertThrows(IOException.class, () -> MazeFile.open(file));
+        MazeFile.write(file, new int[][] {{0, 1}, {1, 0}}, false);
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, java.util.Arrays.copyOf(bytes, bytes.length - 1));
+        assertThrows("Truncated body", IOException.class, () -> MazeFile.open(file));
+        bytes[0] = 'X';
+        Files.write(file, bytes);
+        assertThrows("Bad magic", IOException.class, () -> MazeFile.open(file));
+    }
+    
+    @Test
+    public void testCorruptCellIsReported() throws IOException {
+        Path file = folder.newFile("corrupt.bin").toPath();
+        MazeFile.write(file, new int[][] {{0, 1}, {1, 0}}, false);
+        byte[] bytes = Files.readAllBytes(file);
+        // The last cell, (1,1), indexes a palette of 2 values
+        bytes[bytes.length - 1] = 7;
+        Files.write(file, bytes);
+        IOException e = assertThrows("Bad palette index", IOException.class, () -> MazeFile.open(file));
+        assertTrue("The message names the cell: " + e.getMessage(), e.getMessage().contains("(1,1)"));
+        assertThrows("The loader rejects it too", IOException.class, () -> MazeLoader.load(file));
+        
+        // With a full palette every byte is a valid index
+        int[][] board = new int[16][16];
+        for (int i = 0; i < 256; i++) {
+            board[i / 16][i % 16] = i;
+        }
+        MazeFile.write(file, board, false);
+        assertArrayEquals(board, MazeFile.open(file).toBoard());
+    }
+}
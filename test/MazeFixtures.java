@@ -0,0 +1,46 @@
+import client.Map;
+import client.Pixel2D;
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+/**
+ * Random mazes and path checks shared by the tests: obstacles have the color 1, free cells 0.
+ */
+public class MazeFixtures {
+
+    private MazeFixtures() {}
+
+    /**
+     * @return a w*h maze of free cells with obstacles at random cells (cells can be drawn twice,
+     * so there may be fewer obstacles than requested).
+     */
+    public static Map randomMaze(Random rnd, int w, int h, boolean cyclic, int obstacles) {
+        Map m = new Map(w, h, 0);
+        m.setCyclic(cyclic);
+        for (int i = 0; i < obstacles; i++) {
+            m.setPixel(rnd.nextInt(w), rnd.nextInt(h), 1);
+        }
+        return m;
+    }
+
+    /** Checks that path is an obstacle avoiding path of distance steps from p1 to p2 */
+    public static void assertValidPath(Map m, Pixel2D[] path, Pixel2D p1, Pixel2D p2, int distance) {
+        assertNotNull("A reachable target should have a path", path);
+        assertEquals("Path length should equal the distance", distance + 1, path.length);
+        assertEquals("Path should start at the source", p1, path[0]);
+        assertEquals("Path should end at the target", p2, path[path.length - 1]);
+        for (int i = 0; i < path.length; i++) {
+            assertNotEquals("Path should avoid obstacles", 1, m.getPixel(path[i]));
+            if (i > 0) {
+                int dx = Math.abs(path[i].getX() - path[i - 1].getX());
+                int dy = Math.abs(path[i].getY() - path[i - 1].getY());
+                if (m.isCyclic()) {
+                    dx = Math.min(dx, m.getWidth() - dx);
+                    dy = Math.min(dy, m.getHeight() - dy);
+                }
+                assertEquals("Consecutive pixels should be neighbors", 1, dx + dy);
+            }
+        }
+    }
+}
@@ -0,0 +1,100 @@
+import client.Index2D;
+import client.Map;
+import client.MazeStructure;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+/**
+ * Test class for MazeStructure using JUnit
+ */
+public class MazeStructureTest {
+    
+    /** Number of walkable cells reachable from start when the cell skip is treated as a wall. */
+    private static int reachableWithout(Map m, Index2D start, Index2D skip) {
+        Map copy = new Map(m.getMap());
+        copy.setCyclic(m.isCyclic());
+        copy.setPixel(skip, 1);
+        int count = 0;
+        client.Map2D dist = copy.allDistance(start, 1);
+        for (int x = 0; x < m.getWidth(); x++) {
+            for (int y = 0; y < m.getHeight(); y++) {
+                if (dist.getPixel(x, y) >= 0) count++;
+            }
+        }
+        return count;
+    }
+    
+    @Test
+    public void testArticulationPointsMatchBruteForce() {
+        Random rnd = new Random(13);
+        for (int t = 0; t < 12; t++) {
+            int w = 7 + rnd.nextInt(4), h = 5 + rnd.nextInt(4);
+            Map m = MazeFixtures.randomMaze(rnd, w, h, t % 2 == 0, w * h * 2 / 5);
+            MazeStructure structure = new MazeStructure(m, 1);
+            for (int x = 0; x < w; x++) {
+                for (int y = 0; y < h; y++) {
+                    Index2D p = new Index2D(x, y);
+                    if (m.getPixel(p) == 1) {
+                        assertFalse(structure.isArticulationPoint(p));
+                        assertEquals(-1, structure.pocketDepth(p));
+                        continue;
+                    }
+                    // p disconnects its component iff some neighbor loses cells reachable before
+                    int before = reachableWithout(m, p, new Index2D(-1, -1)) - 1;
+                    boolean cut = false;
+                    for (Index2D n : new Index2D[]{new Index2D(x + 1, y), new Index2D(x - 1, y), new Index2D(x, y + 1), new Index2D(x, y - 1)}) {
+                        Index2D q = m.isCyclic() ? new Index2D((n.getX() + w) % w, (n.getY() + h) % h) : n;
+                        if (m.isInside(q) && m.getPixel(q) != 1 && !q.equals(p)) {
+                            cut |= reachableWithout(m, q, p) < before;
+                        }
+                    }
+                    assertEquals("Articulation point at " + p, cut, structure.isArticulationPoint(p));
+                    assertTrue(structure.componentOf(p) >= 0);
+                }
+            }
+        }
+    }
+    
+    @Test
+    public void testPocketDepth() {
+        // A 3x3 ring with a corridor of length 3 hanging off its right side
+        Map m = new Map(8, 5, 1);
+        m.setCyclic(false);
+        for (int x = 1; x <= 3; x++) {
+            m.setPixel(x, 1, 0);
+            m.setPixel(x, 3, 0);
+        }
+        m.setPixel(1, 2, 0);
+        m.setPixel(3, 2, 0);
+        for (int x = 4; x <= 6; x++) {
+            m.setPixel(x, 2, 0);
+        }
+        MazeStructure structure = new MazeStructure(m, 1);
+        assertEquals("Ring cells are on a cycle", 0, structure.pocketDepth(new Index2D(3, 2)));
+        assertEquals(1, structure.pocketDepth(new Index2D(4, 2)));
+        assertEquals("The dead end is 3 cells deep", 3, structure.pocketDepth(new Index2D(6, 2)));
+        assertTrue(structure.leadsDeeper(new Index2D(3, 2), new Index2D(4, 2)));
+        assertFalse(structure.leadsDeeper(new Index2D(5, 2), new Index2D(4, 2)));
+        assertFalse(structure.leadsDeeper(new Index2D(3, 2), new Index2D(3, 1)));
+        assertTrue("The corridor entrance is a chokepoint", structure.isArticulationPoint(new Index2D(3, 2)));
+        assertTrue(structure.isArticulationPoint(new Index2D(5, 2)));
+        assertFalse(structure.isArticulationPoint(new Index2D(1, 1)));
+        assertFalse("The end of the corridor is not", structure.isArticulationPoint(new Index2D(6, 2)));
+        // The ring, and one component per corridor edge
+        assertEquals(4, structure.componentCount());
+        assertEquals(structure.componentOf(new Index2D(1, 1)), structure.componentOf(new Index2D(2, 3)));
+    }
+    
+    @Test
+    public void testTreeMazeIsMeasuredFromItsCenter() {
+        Map m = new Map(7, 1, 0);
+        m.setCyclic(false);
+        MazeStructure structure = new MazeStructure(m, 1);
+        assertEquals("The center of a corridor has depth 0", 0, structure.pocketDepth(new Index2D(3, 0)));
+        assertEquals(3, structure.pocketDepth(new Index2D(0, 0)));
+        assertEquals(3, structure.pocketDepth(new Index2D(6, 0)));
+        assertEquals(-1, structure.pocketDepth(new Index2D(9, 0)));
+    }
+}
@@ -0,0 +1,45 @@
+import client.Index2D;
+import client.PackedPixel;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Test class for PackedPixel using JUnit
+ */
+public class PackedPixelTest {
+    
+    @Test
+    public void testPacking() {
+        int[] values = {0, 1, -1, 127, 128, Integer.MAX_VALUE, Integer.MIN_VALUE};
+        for (int x : values) {
+            for (int y : values) {
+                PackedPixel p = PackedPixel.of(x, y);
+                assertEquals("X should survive packing", x, p.getX());
+                assertEquals("Y should survive packing", y, p.getY());
+                assertEquals(x, PackedPixel.unpackX(PackedPixel.pack(x, y)));
+                assertEquals(y, PackedPixel.unpackY(PackedPixel.pack(x, y)));
+            }
+        }
+    }
+    
+    @Test
+    public void testFlyweight() {
+        assertSame("Small pixels should be shared", PackedPixel.of(3, 5), PackedPixel.of(3, 5));
+        assertSame("A PackedPixel converts to itself", PackedPixel.of(3, 5), PackedPixel.of(PackedPixel.of(3, 5)));
+        assertEquals("Large pixels are still equal", PackedPixel.of(1000, 5), PackedPixel.of(1000, 5));
+        assertEquals(PackedPixel.of(1000, 5), PackedPixel.of(new Index2D(1000, 5)));
+    }
+    
+    @Test
+    public void testEqualsAndHashCode() {
+        PackedPixel p = PackedPixel.of(6, 2);
+        Index2D q = new Index2D(6, 2);
+        assertTrue("Should equal an Index2D of the same coordinates", p.equals(q));
+        assertTrue("Equality should be symmetric", q.equals(p));
+        assertEquals("Hash codes should agree with Index2D", q.hashCode(), p.hashCode());
+        assertFalse(p.equals(PackedPixel.of(2, 6)));
+        assertFalse(p.equals("6,2"));
+        assertEquals("6,2", p.toString());
+        assertEquals(5.0, PackedPixel.of(0, 0).distance2D(PackedPixel.of(3, 4)), 0.0001);
+    }
+}
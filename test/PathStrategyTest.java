@@ -0,0 +1,95 @@
+import client.Index2D;
+import client.Map;
+import client.Map2D;
+import client.PathStrategy;
+import client.Pixel2D;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+/**
+ * Test class for the shortest path strategies of Map using JUnit
+ */
+public class PathStrategyTest {
+    
+    private static void checkStrategy(PathStrategy strategy) {
+        Random rnd = new Random(strategy.ordinal() + 3);
+        for (int t = 0; t < 40; t++) {
+            int w = 12 + rnd.nextInt(20), h = 12 + rnd.nextInt(20);
+            Map m = MazeFixtures.randomMaze(rnd, w, h, t % 2 == 0, w * h * 3 / 10);
+            m.setPathStrategy(strategy);
+            Index2D p1 = new Index2D(rnd.nextInt(m.getWidth()), rnd.nextInt(m.getHeight()));
+            Index2D p2 = new Index2D(rnd.nextInt(m.getWidth()), rnd.nextInt(m.getHeight()));
+            m.setPixel(p1, 0);
+            m.setPixel(p2, 0);
+            Map2D dist = m.allDistance(p1, 1);
+            Pixel2D[] path = m.shortestPath(p1, p2, 1);
+            if (dist.getPixel(p2) < 0) {
+                assertNull("Unreachable target should give null", path);
+            } else {
+                MazeFixtures.assertValidPath(m, path, p1, p2, dist.getPixel(p2));
+            }
+        }
+    }
+    
+    @Test
+    public void testDefaultStrategy() {
+        assertEquals("Default strategy should be AUTO", PathStrategy.AUTO, new Map(3).getPathStrategy());
+    }
+    
+    @Test
+    public void testBfs() {
+        checkStrategy(PathStrategy.BFS);
+    }
+    
+    @Test
+    public void testBidirectional() {
+        checkStrategy(PathStrategy.BIDIRECTIONAL);
+    }
+    
+    @Test
+    public void testAStar() {
+        checkStrategy(PathStrategy.A_STAR);
+    }
+    
+    @Test
+    public void testAStarPrefersStraightLines() {
+        Map m = new Map(8, 8, 0);
+        m.setCyclic(false);
+        m.setPathStrategy(PathStrategy.A_STAR);
+        Pixel2D[] path = m.shortestPath(new Index2D(0, 0), new Index2D(5, 3), 1);
+        assertEquals("Path should have 9 pixels", 9, path.length);
+        int turns = 0;
+        for (int i = 2; i < path.length; i++) {
+            int dx1 = path[i - 1].getX() - path[i - 2].getX(), dx2 = path[i].getX() - path[i - 1].getX();
+            if ((dx1 == 0) != (dx2 == 0)) turns++;
+        }
+        assertEquals("An open map path should turn only once", 1, turns);
+    }
+    
+    @Test
+    public void testAutoOnLargeMap() {
+        Random rnd = new Random(9);
+        Map m = MazeFixtures.randomMaze(rnd, 200, 150, true, 200 * 150 / 5);
+        Index2D p1 = new Index2D(3, 4);
+        Index2D p2 = new Index2D(120, 90);
+        m.setPixel(p1, 0);
+        m.setPixel(p2, 0);
+        Map2D dist = m.allDistance(p1, 1);
+        MazeFixtures.assertValidPath(m, m.shortestPath(p1, p2, 1), p1, p2, dist.getPixel(p2));
+    }
+    
+    @Test
+    public void testSamePointAndObstacles() {
+        for (PathStrategy strategy : PathStrategy.values()) {
+            Map m = new Map(4, 4, 0);
+            m.setPathStrategy(strategy);
+            m.setPixel(2, 2, 1);
+            Pixel2D[] self = m.shortestPath(new Index2D(1, 1), new Index2D(1, 1), 1);
+            assertEquals(strategy + ": path to self has one pixel", 1, self.length);
+            assertNull(strategy + ": path to an obstacle is null", m.shortestPath(new Index2D(1, 1), new Index2D(2, 2), 1));
+            assertNull(strategy + ": path from an obstacle is null", m.shortestPath(new Index2D(2, 2), new Index2D(1, 1), 1));
+        }
+    }
+}
@@ -0,0 +1,114 @@
+import client.Index2D;
+import client.Map;
+import client.Map2D;
+import client.Pixel2D;
+import client.Territory;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Test class for Territory using JUnit
+ */
+public class TerritoryTest {
+    
+    @Test
+    public void testMatchesPerSourceBfs() {
+        Random rnd = new Random(29);
+        Territory territory = new Territory();
+        for (int t = 0; t < 20; t++) {
+            int w = 9 + rnd.nextInt(5), h = 7 + rnd.nextInt(4);
+            Map m = MazeFixtures.randomMaze(rnd, w, h, t % 2 == 0, w * h / 4);
+            int k = 1 + rnd.nextInt(4);
+            List<Pixel2D> sources = new ArrayList<>();
+            int[] headStart = new int[k];
+            for (int i = 0; i < k; i++) {
+                sources.add(new Index2D(rnd.nextInt(w), rnd.nextInt(h)));
+                headStart[i] = t < 10 ? 0 : rnd.nextInt(4);
+            }
+            territory.run(m, sources, headStart, 1);
+            
+            Map2D[] dist = new Map2D[k];
+            for (int i = 0; i < k; i++) {
+                dist[i] = m.allDistance(sources.get(i), 1);
+            }
+            for (int x = 0; x < w; x++) {
+                for (int y = 0; y < h; y++) {
+                    int best = Integer.MAX_VALUE, second = Integer.MAX_VALUE;
+                    for (int i = 0; i < k; i++) {
+                        int d = dist[i].getPixel(x, y);
+                        if (d < 0) continue;
+                        int time = d - headStart[i];
+                        if (time < best) {
+                            second = best;
+                            best = time;
+                        } else if (time < second) {
+                            second = time;
+                        }
+                    }
+                    Index2D p = new Index2D(x, y);
+                    assertEquals("First arrival at " + p, best, territory.arrival(p));
+                    if (best == Integer.MAX_VALUE) {
+                        assertEquals(-1, territory.owner(p));
+                        assertEquals(-1, territory.margin(p));
+                        continue;
+                    }
+                    int owner = territory.owner(p);
+                    assertEquals("Owner should arrive first", best, dist[owner].getPixel(x, y) - headStart[owner]);
+                    assertEquals("Margin at " + p, second == Integer.MAX_VALUE ? Integer.MAX_VALUE : second - best, territory.margin(p));
+                }
+            }
+        }
+    }
+    
+    @Test
+    public void testSourcesByValue() {
+        Random rnd = new Random(18);
+        Territory byValue = new Territory(), byList = new Territory();
+        for (int t = 0; t < 10; t++) {
+            int w = 9 + rnd.nextInt(5), h = 7 + rnd.nextInt(4);
+            Map m = MazeFixtures.randomMaze(rnd, w, h, t % 2 == 0, w * h / 4);
+            List<Pixel2D> targets = new ArrayList<>();
+            for (int y = 0; y < h; y++) {
+                for (int x = 0; x < w; x++) {
+                    if (m.getPixel(x, y) != 1 && rnd.nextInt(8) == 0) {
+                        m.setPixel(x, y, 2);
+                        targets.add(new Index2D(x, y));
+                    }
+                }
+            }
+            byValue.run(m, v -> v == 2, 1);
+            byList.run(m, targets, null, 1);
+            for (int x = 0; x < w; x++) {
+                for (int y = 0; y < h; y++) {
+                    Index2D p = new Index2D(x, y);
+                    assertEquals("Arrival at " + p, byList.arrival(p), byValue.arrival(p));
+                    assertEquals("Margin at " + p, byList.margin(p), byValue.margin(p));
+                    int owner = byList.owner(p);
+                    Pixel2D source = owner < 0 ? null : targets.get(owner);
+                    assertEquals("Owners are named by their cell", owner < 0 ? -1 : source.getY() * w + source.getX(), byValue.owner(p));
+                }
+            }
+        }
+    }
+    
+    @Test
+    public void testHeadStart() {
+        Map m = new Map(11, 1, 0);
+        m.setCyclic(false);
+        List<Pixel2D> agents = List.of(new Index2D(0, 0), new Index2D(10, 0));
+        Territory territory = new Territory();
+        territory.run(m, agents, null, 1);
+        assertEquals("Without head starts the first agent owns the left half", 0, territory.owner(new Index2D(4, 0)));
+        assertEquals(1, territory.owner(new Index2D(6, 0)));
+        assertEquals("The middle is a tie", 0, territory.margin(new Index2D(5, 0)));
+        assertEquals(8, territory.margin(new Index2D(1, 0)));
+        territory.run(m, agents, new int[]{0, 4}, 1);
+        assertEquals("A head start of 4 moves the border by 2", 1, territory.owner(new Index2D(4, 0)));
+        assertEquals(-4, territory.arrival(new Index2D(10, 0)));
+        assertEquals("Outside the map", -1, territory.owner(new Index2D(20, 0)));
+    }
+}